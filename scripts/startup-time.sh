@@ -0,0 +1,149 @@
+#!/usr/bin/env bash
+#
+# Reports the startup time and the time to the first successful request of the packaged application,
+# in each startup mode, as the median of several runs.
+#
+#   mvn -B -Pcds -DskipTests package
+#   scripts/startup-time.sh [mode...]
+#
+# Modes (default: jar lazy cds cds-lazy):
+#   jar       java -jar target/spotify-*.jar
+#   lazy      the same with LAZY_INIT=true
+#   cds       the extracted jar with the class data sharing archive of the cds profile
+#   cds-lazy  the same with LAZY_INIT=true
+#   cds-aot   the archive plus Spring AOT; build with mvn -Pcds -Dcds.aot=true
+#   native    the GraalVM native executable target/spotify; build with mvn -Pnative -DskipTests native:compile
+#
+# Columns:
+#   started    JVM start until Spring logs "Started" (the "process running for" time)
+#   first-ok   process launch until REQUEST_PATH first answers 2xx/3xx, as a client polling every 20 ms sees it
+#   latency    duration of that first successful request
+#   rss        resident memory once it succeeded
+#
+# Environment:
+#   RUNS=5                 runs per mode
+#   CPU=0                  pin the JVM to this CPU with taskset, like the 1-CPU container (unset: no pinning)
+#   PORT=18080
+#   REQUEST_PATH=/api/oauth/authorize
+#   TIMEOUT_S=120          per run
+#   JAVA_OPTS, APP_ARGS    extra JVM options and application arguments; WARM_UP_ENABLED etc. pass through
+#   OAUTH_CLIENT_ID/SECRET placeholders are used when unset; without network access to Spotify the warm-up
+#                          logs its failed connections and carries on
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+REQUEST_PATH=${REQUEST_PATH:-/api/oauth/authorize}
+TIMEOUT_S=${TIMEOUT_S:-120}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAR=$(ls target/spotify-*.jar 2>/dev/null | head -n 1 || true)
+CDS_DIR=target/cds
+MODES=("$@")
+[ ${#MODES[@]} -eq 0 ] && MODES=(jar lazy cds cds-lazy)
+
+if [ -z "$JAR" ]; then
+    echo "No jar in target/; build it with: mvn -B -Pcds -DskipTests package" >&2
+    exit 1
+fi
+
+LOG=$(mktemp)
+PID=
+trap '[ -n "$PID" ] && kill "$PID" 2>/dev/null; rm -f "$LOG"' EXIT
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR == 0) print "-"; else if (NR % 2) print v[(NR + 1) / 2]; else print int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# Print the command line of a mode, or fail if what it needs was not built
+command_for() {
+    local launcher=()
+    [ -n "${CPU:-}" ] && launcher=(taskset -c "$CPU")
+    case "$1" in
+        jar|lazy)
+            echo "${launcher[*]} $JAVA ${JAVA_OPTS:-} -jar $JAR" ;;
+        cds|cds-lazy|cds-aot)
+            if [ ! -f "$CDS_DIR/application.jsa" ]; then
+                echo "No archive in $CDS_DIR; build it with: mvn -B -Pcds -DskipTests package" >&2
+                return 1
+            fi
+            local aot=
+            [ "$1" = cds-aot ] && aot=-Dspring.aot.enabled=true
+            echo "${launcher[*]} $JAVA -XX:SharedArchiveFile=$CDS_DIR/application.jsa $aot ${JAVA_OPTS:-} -jar $CDS_DIR/$(basename "$JAR")" ;;
+        native)
+            if [ ! -x target/spotify ]; then
+                echo "No native executable; build it with: mvn -B -Pnative -DskipTests native:compile" >&2
+                return 1
+            fi
+            echo "${launcher[*]} target/spotify" ;;
+        *)
+            echo "Unknown mode $1" >&2
+            return 1 ;;
+    esac
+}
+
+# Start the application once and set RESULT to "started first-ok latency rss" (ms, ms, ms, MB)
+run_once() {
+    local mode=$1 command lazy=false
+    command=$(command_for "$mode")
+    case "$mode" in *lazy) lazy=true ;; esac
+
+    local start
+    start=$(now_ms)
+    LAZY_INIT=$lazy OAUTH_CLIENT_ID=${OAUTH_CLIENT_ID:-startup-time} OAUTH_CLIENT_SECRET=${OAUTH_CLIENT_SECRET:-startup-time} \
+        $command --server.port="$PORT" ${APP_ARGS:-} >"$LOG" 2>&1 &
+    PID=$!
+
+    local latency
+    while true; do
+        if ! kill -0 "$PID" 2>/dev/null; then
+            echo "The application exited; log:" >&2
+            tail -n 30 "$LOG" >&2
+            return 1
+        fi
+        if [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_S * 1000 )) ]; then
+            echo "No successful request within ${TIMEOUT_S}s" >&2
+            return 1
+        fi
+        if latency=$(curl -s -o /dev/null -w '%{http_code} %{time_total}' "http://127.0.0.1:$PORT$REQUEST_PATH" 2>/dev/null) \
+                && [[ $latency =~ ^[23] ]]; then
+            break
+        fi
+        sleep 0.02
+    done
+    local first_ok=$(( $(now_ms) - start ))
+
+    local started rss
+    started=$(sed -n 's/.*Started SpotifyApplication in .* (process running for \([0-9.]*\)).*/\1/p' "$LOG" | head -n 1)
+    rss=$(ps -o rss= -p "$PID" | awk '{ print int($1 / 1024) }')
+    kill "$PID"
+    wait "$PID" 2>/dev/null || true
+    PID=
+
+    RESULT=$(awk -v started="${started:-0}" -v first_ok="$first_ok" -v latency="${latency#* }" -v rss="$rss" \
+        'BEGIN { printf "%d %d %d %d", started * 1000, first_ok, latency * 1000, rss }')
+}
+
+for mode in "${MODES[@]}"; do
+    command_for "$mode" >/dev/null
+done
+
+echo "$JAR, $RUNS runs per mode, first request GET $REQUEST_PATH${CPU:+, pinned to CPU $CPU}"
+printf '%-10s %12s %12s %12s %10s\n' mode started first-ok latency rss
+for mode in "${MODES[@]}"; do
+    results=()
+    for _ in $(seq "$RUNS"); do
+        run_once "$mode"
+        results+=("$RESULT")
+    done
+    column() {
+        printf '%s\n' "${results[@]}" | awk -v c="$1" '{ print $c }' | median
+    }
+    printf '%-10s %10s ms %10s ms %10s ms %7s MB\n' "$mode" "$(column 1)" "$(column 2)" "$(column 3)" "$(column 4)"
+done
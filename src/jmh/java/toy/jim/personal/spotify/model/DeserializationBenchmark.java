@@ -0,0 +1,154 @@
+package toy.jim.personal.spotify.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization cost of the Spotify response models.
+ * Compares a plain ObjectMapper with the afterburner and blackbird modules, and reading from a stream
+ * (what OAuthService does) with reading from a String (what it used to do), and the full records with the
+ * slim views the dashboard reads. The mapper and tree variants are what OAuthService did before it used the
+ * cached readers of SpotifyJson.
+ * Payloads are generated deterministically so runs are comparable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DeserializationBenchmark {
+
+    @Param({"plain", "afterburner", "blackbird"})
+    public String mapper;
+
+    @Param({"50"})
+    public int items;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader userReader;
+    private ObjectReader tokenReader;
+    private ObjectReader showsReader;
+    private ObjectReader profileViewReader;
+    private ObjectReader topArtistsViewReader;
+    private byte[] userJson;
+    private byte[] tokenJson;
+    private byte[] showsJson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        switch (mapper) {
+            case "afterburner" -> objectMapper.registerModule(new AfterburnerModule());
+            case "blackbird" -> objectMapper.registerModule(new BlackbirdModule());
+            default -> { }
+        }
+        userReader = objectMapper.readerFor(SpotifyUser.class);
+        tokenReader = objectMapper.readerFor(SpotifyTokenResponse.class);
+        tokenJson = ("{\"access_token\":\"BQDbenchmarkAccessToken0123456789\",\"token_type\":\"Bearer\","
+                + "\"scope\":\"user-read-private user-read-email user-top-read\",\"expires_in\":3600,"
+                + "\"refresh_token\":\"AQBbenchmarkRefreshToken0123456789\"}").getBytes(StandardCharsets.UTF_8);
+        showsReader = objectMapper.readerFor(SpotifyShowsResponse.class);
+        profileViewReader = objectMapper.readerFor(SpotifyProfileView.class);
+        topArtistsViewReader = objectMapper.readerFor(SpotifyTopArtistsView.class);
+        userJson = userJson().getBytes(StandardCharsets.UTF_8);
+        showsJson = showsJson(items).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public SpotifyUser userFromStream() throws IOException {
+        return userReader.readValue(new ByteArrayInputStream(userJson));
+    }
+
+    @Benchmark
+    public SpotifyUser userFromMapper() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(userJson), SpotifyUser.class);
+    }
+
+    @Benchmark
+    public JsonNode tokenAsTree() throws IOException {
+        return objectMapper.readTree(new ByteArrayInputStream(tokenJson));
+    }
+
+    @Benchmark
+    public SpotifyTokenResponse tokenFromReader() throws IOException {
+        return tokenReader.readValue(new ByteArrayInputStream(tokenJson));
+    }
+
+    @Benchmark
+    public SpotifyUser userFromString() throws IOException {
+        return userReader.readValue(new String(userJson, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public SpotifyShowsResponse showsFromStream() throws IOException {
+        return showsReader.readValue(new ByteArrayInputStream(showsJson));
+    }
+
+    @Benchmark
+    public SpotifyShowsResponse showsFromString() throws IOException {
+        return showsReader.readValue(new String(showsJson, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public SpotifyProfileView profileViewFromStream() throws IOException {
+        return profileViewReader.readValue(new ByteArrayInputStream(userJson));
+    }
+
+    @Benchmark
+    public SpotifyTopArtistsView topArtistsViewFromStream() throws IOException {
+        return topArtistsViewReader.readValue(new ByteArrayInputStream(showsJson));
+    }
+
+    static String userJson() {
+        return "{\"display_name\":\"Benchmark User\","
+                + "\"external_urls\":{\"spotify\":\"https://open.spotify.com/user/benchmark\"},"
+                + "\"followers\":{\"href\":null,\"total\":1234},"
+                + "\"href\":\"https://api.spotify.com/v1/users/benchmark\",\"id\":\"benchmark\","
+                + "\"images\":[{\"url\":\"https://i.scdn.co/image/ab67757000003b82\",\"height\":300,\"width\":300},"
+                + "{\"url\":\"https://i.scdn.co/image/ab6775700000ee85\",\"height\":64,\"width\":64}],"
+                + "\"type\":\"user\",\"uri\":\"spotify:user:benchmark\",\"country\":\"SE\",\"email\":\"bench@example.com\","
+                + "\"explicit_content\":{\"filter_enabled\":false,\"filter_locked\":false},\"product\":\"premium\"}";
+    }
+
+    static String showsJson(int items) {
+        StringBuilder json = new StringBuilder("{\"href\":\"https://api.spotify.com/v1/me/top/artists?offset=0&limit=")
+                .append(items).append("\",\"limit\":").append(items)
+                .append(",\"next\":\"https://api.spotify.com/v1/me/top/artists?offset=").append(items)
+                .append("&limit=").append(items).append("\",\"offset\":0,\"previous\":null,\"total\":1000,\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"external_urls\":{\"spotify\":\"https://open.spotify.com/artist/").append(i).append("\"},")
+                    .append("\"followers\":{\"href\":null,\"total\":").append(1000 + i).append("},")
+                    .append("\"genres\":[\"indie pop\",\"swedish pop\",\"dream pop\"],")
+                    .append("\"href\":\"https://api.spotify.com/v1/artists/").append(i).append("\",")
+                    .append("\"id\":\"artist").append(i).append("\",")
+                    .append("\"images\":[{\"url\":\"https://i.scdn.co/image/").append(i).append("a\",\"height\":640,\"width\":640},")
+                    .append("{\"url\":\"https://i.scdn.co/image/").append(i).append("b\",\"height\":320,\"width\":320}],")
+                    .append("\"name\":\"Artist ").append(i).append("\",\"popularity\":").append(i % 100)
+                    .append(",\"type\":\"artist\",\"uri\":\"spotify:artist:").append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,68 @@
+package toy.jim.personal.spotify.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost of controller output: a 50-artist page written artist by artist, as the
+ * newline-delimited stream does, through the mapper (as UserController used to) and through a cached writer,
+ * with a plain mapper and with the Blackbird module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SerializationBenchmark {
+
+    @Param({"plain", "blackbird"})
+    public String mapper;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter itemWriter;
+    private List<SpotifyShowsResponse.Item> items;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        if (mapper.equals("blackbird")) {
+            objectMapper.registerModule(new BlackbirdModule());
+        }
+        itemWriter = objectMapper.writerFor(SpotifyShowsResponse.Item.class);
+        items = objectMapper.readValue(DeserializationBenchmark.showsJson(50).getBytes(StandardCharsets.UTF_8),
+                SpotifyShowsResponse.class).items();
+    }
+
+    @Benchmark
+    public void itemsWithMapper(Blackhole blackhole) throws IOException {
+        for (SpotifyShowsResponse.Item item : items) {
+            blackhole.consume(objectMapper.writeValueAsBytes(item));
+        }
+    }
+
+    @Benchmark
+    public void itemsWithWriter(Blackhole blackhole) throws IOException {
+        for (SpotifyShowsResponse.Item item : items) {
+            blackhole.consume(itemWriter.writeValueAsBytes(item));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package toy.jim.personal.spotify.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import toy.jim.personal.spotify.config.AuthConfig;
+import toy.jim.personal.spotify.config.HttpClientConfig;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.config.TokenStoreConfig;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request work on the OAuth and Web API paths: the authorization redirect URL, the Basic
+ * Authorization header, and building token and bearer requests from {@link SpotifyRequestTemplates},
+ * compared with building the same requests from scratch on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class OAuthRequestBenchmark {
+
+    private static final String CODE = "AQBx3kz0f1RWyD3M7sR8Hc2Tq9vLpN4uJ6eYgKaZ";
+    private static final String TOKEN = "BQD0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final String ME = "https://api.spotify.com/v1/me";
+
+    private OAuthService oAuthService;
+    private AuthConfig authConfig;
+    private HttpClientConfig httpClientConfig;
+    private SpotifyRequestTemplates requestTemplates;
+
+    @Setup
+    public void setUp() {
+        authConfig = new AuthConfig();
+        authConfig.setClientId("0123456789abcdef0123456789abcdef");
+        authConfig.setClientSecret("fedcba9876543210fedcba9876543210");
+        authConfig.setRedirectUri("http://localhost:8080/api/oauth/callback");
+        authConfig.setAuthorizationUrl("https://accounts.spotify.com/authorize");
+        authConfig.setScopes("user-read-private user-read-email user-top-read");
+        authConfig.setTokenUrl("https://accounts.spotify.com/api/token");
+        SpotifyConfig spotifyConfig = new SpotifyConfig();
+        spotifyConfig.setApiBaseUrl("https://api.spotify.com");
+        httpClientConfig = new HttpClientConfig();
+        SpotifyEndpointCatalog endpoints = new SpotifyEndpointCatalog(spotifyConfig, httpClientConfig,
+                new RateLimitConfig(), new ResponseCacheConfig());
+        requestTemplates = new SpotifyRequestTemplates(authConfig, spotifyConfig, endpoints);
+        // Only the collaborators used by getAuthorizationUrl are needed
+        oAuthService = new OAuthService(authConfig, null, null, new TokenStore(new TokenStoreConfig(), new InMemorySharedStateStore()),
+                null, null, null, null, null, requestTemplates, endpoints);
+    }
+
+    @Benchmark
+    public String authorizationUrl() {
+        // A fixed session replaces its pending state each call, so the store does not grow
+        return oAuthService.getAuthorizationUrl("benchmark-session");
+    }
+
+    @Benchmark
+    public String basicAuthorizationHeader() {
+        return SpotifyRequestTemplates.basicAuthorization(authConfig.getClientId(), authConfig.getClientSecret());
+    }
+
+    @Benchmark
+    public HttpPost clientCredentialsRequest() {
+        return requestTemplates.clientCredentialsRequest();
+    }
+
+    @Benchmark
+    public HttpPost authorizationCodeRequest() {
+        return requestTemplates.authorizationCodeRequest(CODE);
+    }
+
+    @Benchmark
+    public HttpRequest bearerGet() {
+        return requestTemplates.asyncBearerGet(ME, TOKEN).build();
+    }
+
+    @Benchmark
+    public Object[] templatedRequests() {
+        return new Object[]{
+                requestTemplates.clientCredentialsRequest(),
+                requestTemplates.authorizationCodeRequest(CODE),
+                requestTemplates.asyncBearerGet(ME, TOKEN).build()};
+    }
+
+    /**
+     * The requests of {@link #templatedRequests()} as they were built before templates: credentials encoded,
+     * URIs parsed, headers and bodies created on every call.
+     */
+    @Benchmark
+    public Object[] perCallRequests() {
+        String basic = "Basic " + Base64.getEncoder().encodeToString(
+                (authConfig.getClientId() + ":" + authConfig.getClientSecret()).getBytes(StandardCharsets.UTF_8));
+
+        HttpPost clientCredentials = new HttpPost(authConfig.getTokenUrl());
+        clientCredentials.setHeader("Authorization", basic);
+        clientCredentials.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        clientCredentials.setEntity(new StringEntity("grant_type=client_credentials", ContentType.APPLICATION_FORM_URLENCODED));
+
+        HttpPost authorizationCode = new HttpPost(authConfig.getTokenUrl());
+        authorizationCode.setHeader("Authorization", basic);
+        authorizationCode.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        authorizationCode.setEntity(new StringEntity("grant_type=authorization_code"
+                + "&code=" + URLEncoder.encode(CODE, StandardCharsets.UTF_8)
+                + "&redirect_uri=" + URLEncoder.encode(authConfig.getRedirectUri(), StandardCharsets.UTF_8),
+                ContentType.APPLICATION_FORM_URLENCODED));
+
+        HttpRequest bearer = HttpRequest.newBuilder(URI.create(ME))
+                .header("Authorization", "Bearer " + TOKEN)
+                .header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofMillis(httpClientConfig.getSocketTimeoutMs()))
+                .GET()
+                .build();
+        return new Object[]{clientCredentials, authorizationCode, bearer};
+    }
+}
@@ -3,9 +3,11 @@ package toy.jim.personal.spotify;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import toy.jim.personal.spotify.config.AuthConfig;
 
 @SpringBootApplication
+@EnableScheduling
 @EnableConfigurationProperties(AuthConfig.class)
 public class SpotifyApplication {
 
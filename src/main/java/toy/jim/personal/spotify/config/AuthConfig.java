@@ -42,4 +42,20 @@ public class AuthConfig {
      * The scopes for OAuth authentication
      */
     private String scopes;
+
+    /**
+     * Time in milliseconds before expiry at which a user request refreshes the token inline
+     */
+    private long refreshSkewMs = 60 * 1000L;
+
+    /**
+     * Time in milliseconds before expiry at which the scheduler refreshes the token in the background
+     */
+    private long proactiveRefreshWindowMs = 5 * 60 * 1000L;
+
+    /**
+     * Time in milliseconds a replica holds the lease to refresh a session's token; other replicas wait for
+     * its result in the meantime
+     */
+    private long refreshLeaseMs = 30 * 1000L;
 }
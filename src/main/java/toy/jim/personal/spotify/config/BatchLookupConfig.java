@@ -0,0 +1,25 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for batched artist and track lookups.
+ * This class binds properties from application.properties with the prefix "batch-lookup"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "batch-lookup")
+public class BatchLookupConfig {
+
+    /**
+     * Time in milliseconds IDs are collected after the first one before the batch is sent
+     */
+    private long windowMs = 25;
+
+    /**
+     * Maximum number of IDs per upstream call; a full batch is sent without waiting for the window (Spotify allows at most 50)
+     */
+    private int maxBatchSize = 50;
+}
@@ -0,0 +1,45 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the per-host circuit breakers and bulkheads around Spotify calls.
+ * This class binds properties from application.properties with the prefix "circuit-breaker"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "circuit-breaker")
+public class CircuitBreakerConfig {
+
+    /**
+     * Number of most recent calls the failure rate is computed over
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * Number of calls that must be recorded before the failure rate can open the circuit
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * Failure rate (0-1) at or above which the circuit opens
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * Time in milliseconds an open circuit rejects calls before letting trial calls through
+     */
+    private long openDurationMs = 30000;
+
+    /**
+     * Number of successful trial calls in the half-open state needed to close the circuit again
+     */
+    private int halfOpenCalls = 3;
+
+    /**
+     * Maximum number of concurrent calls per host; calls beyond it are rejected instead of queued
+     */
+    private int bulkheadMaxConcurrent = 25;
+}
@@ -0,0 +1,205 @@
+package toy.jim.personal.spotify.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.net.ssl.SSLContext;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Configuration class for the outbound HTTP transport used to call Spotify.
+ * This class binds properties from application.properties with the prefix "http-client"
+ * and exposes a pooled, keep-alive {@link CloseableHttpClient} plus a non-blocking {@link HttpClient}.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientConfig {
+
+    /**
+     * Maximum number of pooled connections across all routes
+     */
+    private int maxTotal = 200;
+
+    /**
+     * Maximum number of pooled connections per route (e.g. api.spotify.com)
+     */
+    private int maxPerRoute = 50;
+
+    /**
+     * Timeout in milliseconds for establishing a TCP/TLS connection
+     */
+    private int connectTimeoutMs = 2000;
+
+    /**
+     * Timeout in milliseconds waiting for data on an open socket
+     */
+    private int socketTimeoutMs = 5000;
+
+    /**
+     * Timeout in milliseconds waiting for a free connection from the pool
+     */
+    private int connectionRequestTimeoutMs = 1000;
+
+    /**
+     * Idle time in milliseconds after which pooled connections are evicted
+     */
+    private long idleEvictionMs = 30000;
+
+    /**
+     * Inactivity in milliseconds after which a pooled connection is re-validated before reuse
+     */
+    private int validateAfterInactivityMs = 2000;
+
+    /**
+     * Maximum number of TLS sessions kept for resumption
+     */
+    private int tlsSessionCacheSize = 100;
+
+    /**
+     * Lifetime in seconds of a cached TLS session
+     */
+    private int tlsSessionTimeoutSeconds = 3600;
+
+    /**
+     * Creates the shared pooled HTTP client for Spotify calls.
+     * A single SSL context is shared by every connection so TLS sessions can be resumed
+     * instead of performing a full handshake for each new pooled connection.
+     * The pool's leased, available, pending and max connections are published as gauges, and the
+     * time spent waiting to lease a connection as the spotify.http.pool.wait timer.
+     *
+     * @param meterRegistry The registry to publish pool metrics to
+     * @return The pooled HTTP client
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient spotifyHttpClient(MeterRegistry meterRegistry) {
+        SSLContext sslContext = SSLContexts.createDefault();
+        sslContext.getClientSessionContext().setSessionCacheSize(tlsSessionCacheSize);
+        sslContext.getClientSessionContext().setSessionTimeout(tlsSessionTimeoutSeconds);
+
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext))
+                .build();
+
+        Timer poolWait = Timer.builder("spotify.http.pool.wait")
+                .description("Time spent waiting to lease a pooled connection")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories) {
+            @Override
+            public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+                return timed(super.requestConnection(route, state), poolWait);
+            }
+        };
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+        poolGauge(meterRegistry, connectionManager, "leased", manager -> manager.getTotalStats().getLeased());
+        poolGauge(meterRegistry, connectionManager, "available", manager -> manager.getTotalStats().getAvailable());
+        poolGauge(meterRegistry, connectionManager, "pending", manager -> manager.getTotalStats().getPending());
+        poolGauge(meterRegistry, connectionManager, "max", manager -> manager.getTotalStats().getMax());
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(defaultRequestConfig())
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Build the timeouts applied to every request of the pooled client.
+     *
+     * @return The default request config
+     */
+    private RequestConfig defaultRequestConfig() {
+        return RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+    }
+
+    /**
+     * Creates the non-blocking HTTP client used for asynchronous Spotify calls.
+     * Responses complete on the client's own executor, so no request thread waits on the socket.
+     * When virtual threads are enabled that executor is virtual-thread-per-task as well.
+     * Unlike the pooled client, the JDK client has no connection limit of its own and opens another HTTP/1.1
+     * connection for every concurrent request. Its concurrency is bounded in front of it instead, by the
+     * {@code rate-limit.max-limit} permits and the per-host bulkhead; requests waiting for a permit are
+     * gauged as spotify.ratelimit.queued and requests awaiting their response as spotify.http.async.in-flight.
+     *
+     * @param environment The environment used to detect virtual thread mode
+     * @return The asynchronous HTTP client
+     */
+    @Bean
+    public HttpClient spotifyAsyncHttpClient(Environment environment) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Wrap a pool lease so the time until a connection is handed out is recorded.
+     */
+    private static ConnectionRequest timed(ConnectionRequest request, Timer poolWait) {
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return request.get(timeout, unit);
+                } finally {
+                    poolWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    private static void poolGauge(MeterRegistry meterRegistry, PoolingHttpClientConnectionManager connectionManager,
+                                  String state, ToIntFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder("spotify.http.pool.connections", connectionManager, value::applyAsInt)
+                .description("Connections in the Spotify HTTP client pool")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package toy.jim.personal.spotify.config;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+/**
+ * Configuration class for the GraalVM native image (native profile).
+ * A native image only keeps what its build can see being reached, so this class declares what Spring's AOT
+ * processing cannot infer from the beans: the Spotify models read and written by {@code SpotifyJson} (Jackson
+ * builds their (de)serializers reflectively), and the resources Apache HttpClient loads on startup.
+ * Has no effect on the JVM.
+ */
+@Configuration
+@RegisterReflectionForBinding({SpotifyTokenResponse.class, SpotifyUser.class, SpotifyShowsResponse.class,
+        SpotifyProfileView.class, SpotifyTopArtistsView.class, SpotifyArtistsResponse.class, SpotifyTracksResponse.class,
+        SpotifyDashboard.class})
+@ImportRuntimeHints(NativeImageConfig.Hints.class)
+public class NativeImageConfig {
+
+    /**
+     * Hints for property binding and the pooled HTTP client.
+     */
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Spring Boot derives these from the @ConfigurationProperties beans as well; registering them here
+            // keeps the nested endpoint map of SpotifyConfig bound however the beans are declared
+            BindableRuntimeHintsRegistrar.forTypes(AuthConfig.class, SpotifyConfig.class).registerHints(hints, classLoader);
+
+            // Read by HttpClientBuilder (user agent) and by the hostname verifier of SSLConnectionSocketFactory
+            hints.resources()
+                    .registerPattern("org/apache/http/version.properties")
+                    .registerPattern("org/apache/http/client/version.properties")
+                    .registerPattern("mozilla/public-suffix-list.txt");
+        }
+    }
+}
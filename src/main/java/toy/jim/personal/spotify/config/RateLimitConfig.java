@@ -0,0 +1,60 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for rate-limit handling of Spotify calls.
+ * This class binds properties from application.properties with the prefix "rate-limit"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * Number of concurrent Spotify requests allowed at startup
+     */
+    private int initialLimit = 20;
+
+    /**
+     * Lower bound the concurrency limit is never decreased below
+     */
+    private int minLimit = 1;
+
+    /**
+     * Upper bound the concurrency limit is never increased above
+     */
+    private int maxLimit = 50;
+
+    /**
+     * Factor the concurrency limit is multiplied by when Spotify signals overload (429, 5xx or timeout)
+     */
+    private double backoffRatio = 0.5;
+
+    /**
+     * Time in milliseconds a request waits for a concurrency permit before failing
+     */
+    private long acquireTimeoutMs = 5000;
+
+    /**
+     * Number of retries after a 429 or 5xx answer
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Base delay in milliseconds for exponential backoff when Spotify sends no Retry-After
+     */
+    private long baseBackoffMs = 200;
+
+    /**
+     * Upper bound in milliseconds of the exponential backoff delay
+     */
+    private long maxBackoffMs = 5000;
+
+    /**
+     * Longest Retry-After in milliseconds that is waited out; longer waits fail the request instead
+     */
+    private long maxRetryAfterMs = 30000;
+}
@@ -0,0 +1,30 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the per-user Spotify response cache.
+ * This class binds properties from application.properties with the prefix "response-cache"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheConfig {
+
+    /**
+     * Maximum number of cached responses across all users
+     */
+    private long maxEntries = 10000;
+
+    /**
+     * Time in milliseconds a response is kept after it was last written, so it can still be revalidated
+     */
+    private long retentionMs = 60 * 60 * 1000L;
+
+    /**
+     * Freshness time in milliseconds for endpoints without their own spotify.endpoints.{name}.cache-ttl-ms
+     */
+    private long defaultTtlMs = 60 * 1000L;
+}
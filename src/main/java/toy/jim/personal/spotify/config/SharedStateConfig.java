@@ -0,0 +1,61 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import toy.jim.personal.spotify.service.InMemorySharedStateStore;
+import toy.jim.personal.spotify.service.JdbcSharedStateStore;
+import toy.jim.personal.spotify.service.SharedStateStore;
+
+/**
+ * Configuration class for the state shared between replicas: session tokens, OAuth state parameters
+ * and cached Spotify responses.
+ * This class binds properties from application.properties with the prefix "shared-state"
+ * and exposes the {@link SharedStateStore} selected by shared-state.type.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "shared-state")
+public class SharedStateConfig {
+
+    /**
+     * Store implementation: "memory" for a single instance, "jdbc" for replicas sharing the spring.datasource database
+     */
+    private String type = "memory";
+
+    /**
+     * Table holding the state when the type is jdbc
+     */
+    private String table = "shared_state";
+
+    /**
+     * Whether to create the table on startup if it does not exist
+     */
+    private boolean initializeSchema = true;
+
+    /**
+     * Shared state kept in this JVM.
+     *
+     * @return The in-memory store
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "shared-state", name = "type", havingValue = "memory", matchIfMissing = true)
+    public SharedStateStore inMemorySharedStateStore() {
+        return new InMemorySharedStateStore();
+    }
+
+    /**
+     * Shared state kept in the application's database, visible to every replica using it.
+     *
+     * @param jdbcTemplate Template over spring.datasource
+     * @return The JDBC store
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "shared-state", name = "type", havingValue = "jdbc")
+    public SharedStateStore jdbcSharedStateStore(JdbcTemplate jdbcTemplate) {
+        return new JdbcSharedStateStore(jdbcTemplate, table, initializeSchema);
+    }
+}
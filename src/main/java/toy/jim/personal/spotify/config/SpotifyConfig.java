@@ -5,10 +5,81 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "spotify")
 public class SpotifyConfig {
 
-    private String userUrl;
+    /**
+     * Base URL of the Spotify Web API; override to point at a local stand-in or proxy
+     */
+    private String apiBaseUrl = "https://api.spotify.com";
+
+    /**
+     * Time in milliseconds the dashboard waits for its parallel upstream calls before answering with what it has
+     */
+    private long dashboardDeadlineMs = 3000;
+
+    /**
+     * Number of items requested per page when following paginated responses (Spotify allows at most 50)
+     */
+    private int pageSize = 50;
+
+    /**
+     * Web API endpoints by name (e.g. profile, top-artists) with their per-endpoint policies
+     */
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>(Map.of(
+            "profile", new Endpoint("/v1/me"),
+            "top-artists", new Endpoint("/v1/me/top/artists"),
+            "artists", new Endpoint("/v1/artists"),
+            "tracks", new Endpoint("/v1/tracks")));
+
+    /**
+     * A Web API endpoint. Policies that are not set fall back to the global http-client,
+     * rate-limit and response-cache settings.
+     */
+    @Data
+    public static class Endpoint {
+
+        /**
+         * Path of the endpoint, e.g. /v1/me
+         */
+        private String path;
+
+        /**
+         * Base URL overriding spotify.api-base-url for this endpoint, e.g. a regional proxy
+         */
+        private String baseUrl;
+
+        /**
+         * Timeout in milliseconds waiting for data from this endpoint
+         */
+        private Integer timeoutMs;
+
+        /**
+         * Freshness time in milliseconds of cached responses from this endpoint
+         */
+        private Long cacheTtlMs;
+
+        /**
+         * Maximum number of retries of a 429 or 5xx answer from this endpoint
+         */
+        private Integer maxRetries;
+
+        /**
+         * Query parameters sent with every request to this endpoint, e.g. market for track lookups or
+         * fields for playlist endpoints. Spotify ignores parameters an endpoint does not support.
+         */
+        private Map<String, String> query = new LinkedHashMap<>();
+
+        public Endpoint() {
+        }
+
+        public Endpoint(String path) {
+            this.path = path;
+        }
+    }
 }
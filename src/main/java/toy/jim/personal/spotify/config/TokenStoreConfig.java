@@ -0,0 +1,35 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the per-session token store.
+ * This class binds properties from application.properties with the prefix "token-store"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "token-store")
+public class TokenStoreConfig {
+
+    /**
+     * Idle time in milliseconds after which a session's tokens are evicted
+     */
+    private long sessionTtlMs = 8 * 60 * 60 * 1000L;
+
+    /**
+     * Minimum idle time in milliseconds before a read extends a session's expiry, so a shared store is not written on every request
+     */
+    private long touchIntervalMs = 60 * 1000L;
+
+    /**
+     * Time in milliseconds an OAuth state parameter stays valid while the user authorizes
+     */
+    private long stateTtlMs = 10 * 60 * 1000L;
+
+    /**
+     * Interval in milliseconds between eviction sweeps
+     */
+    private long evictionIntervalMs = 60 * 1000L;
+}
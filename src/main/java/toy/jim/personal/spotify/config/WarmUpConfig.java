@@ -0,0 +1,37 @@
+package toy.jim.personal.spotify.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the warm-up run once the application has started.
+ * This class binds properties from application.properties with the prefix "warm-up"
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "warm-up")
+public class WarmUpConfig {
+
+    /**
+     * Whether to warm up before the application reports itself ready to accept traffic
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of times each Spotify model is written and read back, so the JSON paths of the first
+     * requests are loaded and compiled
+     */
+    private int jsonIterations = 100;
+
+    /**
+     * Whether to fetch the client credentials token and open a connection to each Spotify host
+     * on both HTTP clients
+     */
+    private boolean connections = true;
+
+    /**
+     * Maximum time in milliseconds readiness waits for the connections to be opened
+     */
+    private long timeoutMs = 5000;
+}
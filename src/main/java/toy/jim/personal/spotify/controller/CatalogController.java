@@ -0,0 +1,90 @@
+package toy.jim.personal.spotify.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.service.SpotifyBatchLookup;
+import toy.jim.personal.spotify.service.TokenStore;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Controller for looking up Spotify catalog data (artists and tracks) by ID.
+ * Lookups from all callers are batched into Spotify's multi-ID calls. They are made with the application's
+ * client credentials token, so only callers whose session holds a user token (i.e. who logged in with Spotify)
+ * may use them; anyone else gets 401.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+@RequiredArgsConstructor
+public class CatalogController {
+
+    /**
+     * Maximum number of IDs per request, matching what Spotify accepts per multi-ID call
+     */
+    static final int MAX_IDS = 50;
+
+    private final SpotifyBatchLookup batchLookup;
+    private final TokenStore tokenStore;
+
+    /**
+     * Get artists by ID.
+     *
+     * @param request The request of the caller
+     * @param ids     Comma-separated Spotify artist IDs
+     * @return The artists in the order of the IDs, with null for unknown ones, 400 if there are more than 50 IDs,
+     * or 401 if the caller is not logged in
+     */
+    @GetMapping("/artists")
+    public CompletableFuture<ResponseEntity<SpotifyArtistsResponse>> getArtists(HttpServletRequest request,
+                                                                                @RequestParam List<String> ids) {
+        if (!isLoggedIn(request)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        if (ids.size() > MAX_IDS) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return batchLookup.getArtists(ids).thenApply(artists -> ResponseEntity.ok(new SpotifyArtistsResponse(artists)));
+    }
+
+    /**
+     * Get tracks by ID.
+     *
+     * @param request The request of the caller
+     * @param ids     Comma-separated Spotify track IDs
+     * @return The tracks in the order of the IDs, with null for unknown ones, 400 if there are more than 50 IDs,
+     * or 401 if the caller is not logged in
+     */
+    @GetMapping("/tracks")
+    public CompletableFuture<ResponseEntity<SpotifyTracksResponse>> getTracks(HttpServletRequest request,
+                                                                              @RequestParam List<String> ids) {
+        if (!isLoggedIn(request)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        if (ids.size() > MAX_IDS) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return batchLookup.getTracks(ids).thenApply(tracks -> ResponseEntity.ok(new SpotifyTracksResponse(tracks)));
+    }
+
+    /**
+     * Check whether the caller has a session holding a user token.
+     * The session is looked up without creating one, so anonymous callers do not leave sessions behind.
+     *
+     * @param request The request of the caller
+     * @return True if the caller is logged in
+     */
+    private boolean isLoggedIn(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null && tokenStore.get(session.getId()) != null;
+    }
+}
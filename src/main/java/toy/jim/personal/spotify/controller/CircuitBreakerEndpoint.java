@@ -0,0 +1,43 @@
+package toy.jim.personal.spotify.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.service.CircuitBreaker;
+import toy.jim.personal.spotify.service.CircuitBreakerRegistry;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint at /actuator/circuitbreakers showing the state of each upstream host's circuit breaker.
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    /**
+     * Get the state, failure rate, in-flight calls and rejection counts of every breaker, keyed by host.
+     *
+     * @return The breaker details
+     */
+    @ReadOperation
+    public Map<String, BreakerDetails> circuitBreakers() {
+        Map<String, BreakerDetails> details = new TreeMap<>();
+        for (CircuitBreaker breaker : circuitBreakerRegistry.getAll()) {
+            details.put(breaker.getHost(), new BreakerDetails(breaker.getState(), breaker.getFailureRate(),
+                    breaker.getInFlight(), breaker.getRejectedOpen(), breaker.getRejectedBulkhead()));
+        }
+        return details;
+    }
+
+    /**
+     * Snapshot of one breaker.
+     */
+    public record BreakerDetails(CircuitBreaker.State state, double failureRate, int inFlight,
+                                 long rejectedOpen, long rejectedBulkhead) {}
+}
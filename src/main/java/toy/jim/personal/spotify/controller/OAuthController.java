@@ -1,5 +1,6 @@
 package toy.jim.personal.spotify.controller;
 
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.view.RedirectView;
 import toy.jim.personal.spotify.service.OAuthService;
+import toy.jim.personal.spotify.service.SpotifyResponseCache;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -24,6 +26,7 @@ import java.util.Map;
 public class OAuthController {
 
     private final OAuthService oAuthService;
+    private final SpotifyResponseCache responseCache;
 
     /**
      * Get an OAuth access token using client credentials flow.
@@ -49,11 +52,12 @@ public class OAuthController {
      * Get the current bearer token obtained from the authorization code flow.
      * This token is stored after a successful authorization and callback.
      *
+     * @param session The HTTP session of the caller
      * @return The bearer token or an error message
      */
     @GetMapping("/bearer-token")
-    public ResponseEntity<Map<String, String>> getBearerToken() {
-        String bearerToken = oAuthService.getBearerToken();
+    public ResponseEntity<Map<String, String>> getBearerToken(HttpSession session) {
+        String bearerToken = oAuthService.getBearerToken(session.getId());
         Map<String, String> response = new HashMap<>();
 
         if (bearerToken != null) {
@@ -69,11 +73,12 @@ public class OAuthController {
      * Initiates the Spotify authorization code flow.
      * Redirects the user to the Spotify authorization page.
      *
+     * @param session The HTTP session of the caller
      * @return A redirect to the Spotify authorization page
      */
     @GetMapping("/authorize")
-    public RedirectView authorize() {
-        String authorizationUrl = oAuthService.getAuthorizationUrl();
+    public RedirectView authorize(HttpSession session) {
+        String authorizationUrl = oAuthService.getAuthorizationUrl(session.getId());
         log.info("Redirecting to Spotify authorization URL: {}", authorizationUrl);
         return new RedirectView(authorizationUrl);
     }
@@ -85,13 +90,15 @@ public class OAuthController {
      * @param code  The authorization code from Spotify
      * @param state The state parameter to validate the request
      * @param error Any error that occurred during authorization
+     * @param session The HTTP session of the caller
      * @return A response with the access token or an error message
      */
     @GetMapping("/callback")
     public RedirectView callback(
             @RequestParam(required = false) String code,
             @RequestParam(required = false) String state,
-            @RequestParam(required = false) String error) {
+            @RequestParam(required = false) String error,
+            HttpSession session) {
 
 
         // Check for errors from Spotify
@@ -102,7 +109,7 @@ public class OAuthController {
         }
 
         // Validate state parameter to prevent CSRF attacks
-        if (!oAuthService.validateState(state)) {
+        if (!oAuthService.validateState(session.getId(), state)) {
             log.error("Invalid state parameter in callback");
             return new RedirectView("/?error=invalid_state");
 
@@ -111,10 +118,12 @@ public class OAuthController {
         // Exchange the authorization code for an access token
         if (code != null) {
             log.info("Received authorization code from Spotify, exchanging for token");
-            String accessToken = oAuthService.exchangeCodeForToken(code);
+            String accessToken = oAuthService.exchangeCodeForToken(session.getId(), code);
 
             if (accessToken != null) {
                 log.info("Successfully obtained access token");
+                // A new login may be a different Spotify account, so drop responses cached for the session
+                responseCache.invalidate(session.getId());
                 return new RedirectView("/?success=true");
 
             } else {
@@ -1,48 +1,144 @@
 package toy.jim.personal.spotify.controller;
 
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
 import toy.jim.personal.spotify.model.SpotifyShowsResponse;
 import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.VersionedResponse;
+import toy.jim.personal.spotify.service.SpotifyJson;
 import toy.jim.personal.spotify.service.UserServer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller for Spotify user operations.
+ * User data is answered with an ETag and Last-Modified taken from the version of the cached Spotify payload
+ * and with Cache-Control: private, no-cache, so browsers keep it and revalidate on every visit; Spring answers
+ * a matching If-None-Match or If-Modified-Since with an empty 304. JSON bodies are gzip-compressed by the
+ * server (server.compression), which is why the ETags are weak: Tomcat does not compress responses with
+ * strong ETags, as the compressed bytes differ from the ones the tag would promise.
  */
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final byte[] INCOMPLETE_STREAM =
+            "{\"error\":{\"status\":502,\"message\":\"Top artists incomplete: a page could not be fetched\"}}\n"
+                    .getBytes(StandardCharsets.UTF_8);
+
     private final UserServer userServer;
+    private final SpotifyJson spotifyJson;
 
     /**
      * Get a Spotify user profile.
+     * The result is produced asynchronously, so the request thread is released while Spotify answers.
      *
+     * @param session The HTTP session of the caller
      * @return The Spotify user profile
      */
     @GetMapping("/profile")
-    public ResponseEntity<SpotifyUser> getUserProfile() {
-        SpotifyUser user = userServer.getUser();
-        if (user != null) {
-            return ResponseEntity.ok(user);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public CompletableFuture<ResponseEntity<SpotifyUser>> getUserProfile(HttpSession session) {
+        return userServer.getUserAsync(session.getId()).thenApply(user -> {
+            if (user != null) {
+                return versioned(user);
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        });
     }
 
 
     @GetMapping("/tracks")
-    public ResponseEntity<SpotifyShowsResponse> getUserTracks() {
-        SpotifyShowsResponse user = userServer.getTracks();
-        if (user != null) {
-            return ResponseEntity.ok(user);
-        } else {
-            return ResponseEntity.notFound().build();
+    public CompletableFuture<ResponseEntity<SpotifyShowsResponse>> getUserTracks(HttpSession session) {
+        return userServer.getTracksAsync(session.getId()).thenApply(user -> {
+            if (user != null) {
+                return versioned(user);
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * Get the user's profile and top artists in a single response.
+     * Both parts are fetched from Spotify in parallel; a part that is missing is returned as null.
+     *
+     * @param session The HTTP session of the caller
+     * @return The combined dashboard
+     */
+    @GetMapping("/dashboard")
+    public CompletableFuture<ResponseEntity<SpotifyDashboard>> getUserDashboard(HttpSession session) {
+        return userServer.getDashboardAsync(session.getId()).thenApply(dashboard -> {
+            if (dashboard != null) {
+                return versioned(dashboard);
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        });
+    }
+
+    /**
+     * Build a 200 answer carrying the validators of a versioned resource.
+     * Resources without a version, such as a partial dashboard, are marked not to be stored.
+     *
+     * @param response The versioned resource
+     * @return The answer
+     */
+    private static <T> ResponseEntity<T> versioned(VersionedResponse<T> response) {
+        if (response.etag() == null) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(response.body());
         }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag("W/\"" + response.etag() + "\"")
+                .lastModified(response.lastModifiedMs())
+                .body(response.body());
+    }
+
+    /**
+     * Stream all of the user's top artists as newline-delimited JSON, one artist per line.
+     * The request thread is released while the first page is fetched; later pages are fetched as the response
+     * is written and flushed page by page, so the full result set is never held in memory. If a later page
+     * cannot be fetched the stream ends with a Spotify-style error line, {"error":{"status":502,...}}, so
+     * that clients can tell a truncated list from a complete one.
+     *
+     * @param session The HTTP session of the caller
+     * @return The streamed artists, or 404 if the first page could not be fetched
+     */
+    @GetMapping(value = "/tracks/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamUserTracks(HttpSession session) {
+        return userServer.getTopArtistPages(session.getId()).thenApply(pages -> {
+            if (pages == null) {
+                return ResponseEntity.notFound().build();
+            }
+            StreamingResponseBody body = out -> {
+                while (pages.hasNext()) {
+                    SpotifyShowsResponse page = pages.next();
+                    if (page.items() != null) {
+                        for (SpotifyShowsResponse.Item item : page.items()) {
+                            out.write(spotifyJson.write(item, SpotifyShowsResponse.Item.class));
+                            out.write('\n');
+                        }
+                    }
+                    out.flush();
+                }
+                if (pages.isIncomplete()) {
+                    out.write(INCOMPLETE_STREAM);
+                    out.flush();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        });
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package toy.jim.personal.spotify.model;
+
+/**
+ * Record representing the result of a conditional GET against the Spotify API.
+ * When the server answers 304 Not Modified the body is null and notModified is true.
+ * A failed request has neither a body nor notModified set, and its status tells why it failed.
+ *
+ * @param <T> The type of the deserialized body
+ * @param status The HTTP status of the final answer, or 0 if none was received (I/O error, timeout or open circuit)
+ */
+public record ConditionalResponse<T>(
+    T body,
+    String etag,
+    boolean notModified,
+    int status
+) {
+    public ConditionalResponse(T body, String etag, boolean notModified) {
+        this(body, etag, notModified, notModified ? 304 : 200);
+    }
+
+    /**
+     * Create a response for a 304 Not Modified answer.
+     *
+     * @param etag The entity tag returned by the server, if any
+     * @return The not-modified response
+     */
+    public static <T> ConditionalResponse<T> notModified(String etag) {
+        return new ConditionalResponse<>(null, etag, true, 304);
+    }
+
+    /**
+     * Create a response for a request that failed.
+     *
+     * @param status The HTTP status of the final answer, or 0 if none was received
+     * @return The failed response
+     */
+    public static <T> ConditionalResponse<T> failed(int status) {
+        return new ConditionalResponse<>(null, null, false, status);
+    }
+
+    /**
+     * @return True if the request produced neither a body nor a 304
+     */
+    public boolean isFailed() {
+        return body == null && !notModified;
+    }
+
+    /**
+     * Whether the request failed because Spotify could not serve it: no answer arrived (I/O error, timeout or
+     * open circuit) or it answered 5xx. Unlike a 4xx, such a failure says nothing about the resource itself.
+     *
+     * @return True if Spotify was unavailable
+     */
+    public boolean isUnavailable() {
+        return isFailed() && (status == 0 || status >= 500);
+    }
+}
@@ -0,0 +1,13 @@
+package toy.jim.personal.spotify.model;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Record representing the response of Spotify's several-artists lookup (GET /v1/artists?ids=...).
+ * Artists are in the order of the requested IDs, with null for IDs Spotify does not know.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyArtistsResponse(
+    List<SpotifyShowsResponse.Item> artists
+) {}
@@ -0,0 +1,11 @@
+package toy.jim.personal.spotify.model;
+
+/**
+ * Record combining the user's profile and top artists for a single page load.
+ * Both parts are the slim views the web UI needs rather than the full Spotify objects.
+ * Either part is null if it could not be fetched before the dashboard deadline.
+ */
+public record SpotifyDashboard(
+    SpotifyProfileView profile,
+    SpotifyTopArtistsView topArtists
+) {}
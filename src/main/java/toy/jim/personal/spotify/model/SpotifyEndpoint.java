@@ -0,0 +1,65 @@
+package toy.jim.personal.spotify.model;
+
+import java.net.URI;
+
+/**
+ * A Spotify Web API endpoint with its policies resolved against the global defaults.
+ *
+ * @param name       The endpoint name, e.g. profile
+ * @param url        The full URL of the endpoint, or null for the policy applied to unlisted URLs
+ * @param uri        The parsed URL, or null for the policy applied to unlisted URLs
+ * @param query      The encoded query parameters sent with every request to the endpoint, or an empty string
+ * @param timeoutMs  Timeout in milliseconds waiting for data
+ * @param cacheTtlMs Freshness time in milliseconds of cached responses
+ * @param maxRetries Maximum number of retries of a 429 or 5xx answer; a 5xx answer to a non-idempotent
+ *                   request is never retried
+ */
+public record SpotifyEndpoint(String name, String url, URI uri, String query, int timeoutMs, long cacheTtlMs, int maxRetries) {
+
+    /**
+     * Build a request URL for this endpoint: its URL with its own query parameters followed by the given ones.
+     * The given parameters come last, so a caller may end them with a name whose value it appends itself.
+     *
+     * @param parameters Encoded query parameters of this request, e.g. limit=50, or null
+     * @return The request URL
+     */
+    public String requestUrl(String parameters) {
+        boolean none = parameters == null || parameters.isEmpty();
+        if (query.isEmpty()) {
+            return none ? url : url + "?" + parameters;
+        }
+        return none ? url + "?" + query : url + "?" + query + "&" + parameters;
+    }
+
+    /**
+     * Whether a failed request may be sent again under this policy. A 429 means Spotify did not process the
+     * request, so any request may be retried after one. A 5xx may come after the request had its effect,
+     * such as a token exchange that redeemed a one-time code, so only idempotent requests are retried then.
+     *
+     * @param method The HTTP method of the request
+     * @param status The status code of the answer
+     * @return true if the request may be retried while the retry budget lasts
+     */
+    public boolean isRetryable(String method, int status) {
+        if (status == 429) {
+            return true;
+        }
+        return status >= 500 && switch (method) {
+            case "GET", "HEAD", "PUT", "DELETE", "OPTIONS" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Whether a URI addresses this endpoint, whatever its query string.
+     *
+     * @param other The URI to check
+     * @return true if scheme, authority and path match
+     */
+    public boolean matches(URI other) {
+        return uri != null
+                && uri.getRawPath().equals(other.getRawPath())
+                && uri.getRawAuthority().equals(other.getRawAuthority())
+                && uri.getScheme().equalsIgnoreCase(other.getScheme());
+    }
+}
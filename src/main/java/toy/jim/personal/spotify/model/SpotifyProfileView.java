@@ -0,0 +1,35 @@
+package toy.jim.personal.spotify.model;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Slim projection of the Spotify user profile (GET /v1/me), holding only what the web UI shows.
+ * The JSON names match {@link SpotifyUser}, so the UI reads either. Every other property, including
+ * whole subtrees such as explicit_content, is skipped by the parser without being materialized.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyProfileView(
+    String display_name,
+    SpotifyShowsResponse.ExternalUrls external_urls,
+    Followers followers,
+    String id,
+    List<Image> images,
+    String type
+) {
+    /**
+     * Record representing the follower count, without the (always null) href.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Followers(
+        int total
+    ) {}
+
+    /**
+     * Record representing an image by its URL only; the UI does not use the dimensions.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Image(
+        String url
+    ) {}
+}
@@ -0,0 +1,24 @@
+package toy.jim.personal.spotify.model;
+
+import java.time.Instant;
+
+/**
+ * Record representing an OAuth token issued by Spotify for a single user.
+ * Based on the token response returned by the Spotify accounts service.
+ */
+public record SpotifyToken(
+    String accessToken,
+    String refreshToken,
+    Instant expiresAt
+) {
+    /**
+     * Check whether the access token expires within the given number of milliseconds.
+     *
+     * @param now      The current time
+     * @param windowMs The window in milliseconds
+     * @return True if the token is expired or expires within the window
+     */
+    public boolean expiresWithin(Instant now, long windowMs) {
+        return expiresAt != null && !now.plusMillis(windowMs).isBefore(expiresAt);
+    }
+}
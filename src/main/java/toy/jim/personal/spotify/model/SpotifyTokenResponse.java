@@ -0,0 +1,18 @@
+package toy.jim.personal.spotify.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Record representing the body returned by the Spotify accounts token endpoint, for any grant type.
+ * On failure only error and error_description are set.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyTokenResponse(
+    String access_token,
+    String token_type,
+    String scope,
+    Long expires_in,
+    String refresh_token,
+    String error,
+    String error_description
+) {}
@@ -0,0 +1,28 @@
+package toy.jim.personal.spotify.model;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Slim projection of a page of the user's top artists (GET /v1/me/top/artists), holding only what the
+ * web UI shows. The JSON names match {@link SpotifyShowsResponse}, so the UI reads either. Every other
+ * property, such as href, uri and followers of each artist, is skipped by the parser without being materialized.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyTopArtistsView(
+    int total,
+    List<Artist> items
+) {
+    /**
+     * Record representing an artist as shown in the UI.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Artist(
+        SpotifyShowsResponse.ExternalUrls external_urls,
+        List<String> genres,
+        String id,
+        List<SpotifyProfileView.Image> images,
+        String name,
+        int popularity
+    ) {}
+}
@@ -0,0 +1,65 @@
+package toy.jim.personal.spotify.model;
+
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Record representing the response of Spotify's several-tracks lookup (GET /v1/tracks?ids=...).
+ * Tracks are in the order of the requested IDs, with null for IDs Spotify does not know.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record SpotifyTracksResponse(
+    List<Track> tracks
+) {
+    /**
+     * Record representing a track.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Track(
+        Album album,
+        List<ArtistRef> artists,
+        int disc_number,
+        int duration_ms,
+        boolean explicit,
+        SpotifyShowsResponse.ExternalUrls external_urls,
+        String href,
+        String id,
+        String name,
+        int popularity,
+        String preview_url,
+        int track_number,
+        String type,
+        String uri
+    ) {}
+
+    /**
+     * Record representing the album a track appears on.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Album(
+        String album_type,
+        List<ArtistRef> artists,
+        SpotifyShowsResponse.ExternalUrls external_urls,
+        String href,
+        String id,
+        List<SpotifyShowsResponse.Image> images,
+        String name,
+        String release_date,
+        int total_tracks,
+        String type,
+        String uri
+    ) {}
+
+    /**
+     * Record representing an artist as referenced from a track or album, without followers, genres or images.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ArtistRef(
+        SpotifyShowsResponse.ExternalUrls external_urls,
+        String href,
+        String id,
+        String name,
+        String type,
+        String uri
+    ) {}
+}
@@ -0,0 +1,11 @@
+package toy.jim.personal.spotify.model;
+
+/**
+ * A resource served from the response cache with the validators clients can revalidate it with.
+ *
+ * @param body           The resource
+ * @param etag           Opaque version of the resource, computed from its content, or null if it must not be revalidated
+ * @param lastModifiedMs Time in epoch milliseconds at which the content last changed, or 0 if unknown
+ * @param <T>            The type of the resource
+ */
+public record VersionedResponse<T>(T body, String etag, long lastModifiedMs) {}
@@ -0,0 +1,247 @@
+package toy.jim.personal.spotify.service;
+
+import toy.jim.personal.spotify.config.CircuitBreakerConfig;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker and bulkhead for one upstream host.
+ * The breaker records the outcome of the most recent calls and opens once their failure rate reaches the
+ * threshold. While open, calls fail fast without touching the network. After the open duration a few trial
+ * calls are let through (half-open), and the circuit closes again once they succeed. The bulkhead caps the
+ * number of concurrent calls so a slow host cannot tie up every thread.
+ */
+public class CircuitBreaker {
+
+    /**
+     * State of the circuit.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Returned by {@link #tryAcquire} when the call may not proceed.
+     */
+    public static final long REJECTED = -1;
+
+    /**
+     * Permit of a call made outside a half-open trial.
+     */
+    public static final long NORMAL = 0;
+
+    private final String host;
+    private final CircuitBreakerConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private final AtomicLong rejectedOpen = new AtomicLong();
+    private final AtomicLong rejectedBulkhead = new AtomicLong();
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAtMs;
+    // Incremented on every move to half-open, so trial permits of an earlier round are told apart
+    private long trialRound;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+    private int inFlight;
+
+    public CircuitBreaker(String host, CircuitBreakerConfig config) {
+        this.host = host;
+        this.config = config;
+        this.outcomes = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * Ask for permission to call the host.
+     * Every granted permit must be handed back with {@link #release} or {@link #cancel}. A permit granted
+     * while half-open identifies its trial round, so that calls started before the circuit opened, or in an
+     * earlier round, never count as trial calls when they complete.
+     *
+     * @return The permit, or {@link #REJECTED} if the circuit is open or the bulkhead is full
+     */
+    public long tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAtMs < config.getOpenDurationMs()) {
+                    rejectedOpen.incrementAndGet();
+                    return REJECTED;
+                }
+                state = State.HALF_OPEN;
+                trialRound++;
+                halfOpenInFlight = 0;
+                halfOpenSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN && halfOpenInFlight + halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                rejectedOpen.incrementAndGet();
+                return REJECTED;
+            }
+            if (inFlight >= config.getBulkheadMaxConcurrent()) {
+                rejectedBulkhead.incrementAndGet();
+                return REJECTED;
+            }
+            inFlight++;
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight++;
+                return trialRound;
+            }
+            return NORMAL;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand back a permit and record the outcome of the call.
+     * Only a trial call of the current half-open round moves the circuit out of half-open; other calls
+     * that complete meanwhile are not recorded.
+     *
+     * @param permit The permit returned by {@link #tryAcquire}
+     * @param failed Whether the call failed (I/O error, timeout or 5xx)
+     */
+    public void release(long permit, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (isCurrentTrial(permit)) {
+                halfOpenInFlight--;
+                if (failed) {
+                    open();
+                } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                    close();
+                }
+                return;
+            }
+            if (state == State.CLOSED) {
+                record(failed);
+                if (recorded >= config.getMinimumCalls()
+                        && (double) failures / recorded >= config.getFailureRateThreshold()) {
+                    open();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand back a permit for a call that was never made, without recording an outcome.
+     *
+     * @param permit The permit returned by {@link #tryAcquire}
+     */
+    public void cancel(long permit) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (isCurrentTrial(permit)) {
+                halfOpenInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the host this breaker guards.
+     *
+     * @return The host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Get the current state, moving an open circuit whose open duration has elapsed to half-open.
+     *
+     * @return The state
+     */
+    public State getState() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAtMs >= config.getOpenDurationMs()) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the failure rate over the sliding window.
+     *
+     * @return The failure rate between 0 and 1, or 0 if no calls were recorded
+     */
+    public double getFailureRate() {
+        lock.lock();
+        try {
+            return recorded == 0 ? 0 : (double) failures / recorded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of calls currently in flight.
+     *
+     * @return The number of calls
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of calls rejected because the circuit was open.
+     *
+     * @return The number of rejected calls
+     */
+    public long getRejectedOpen() {
+        return rejectedOpen.get();
+    }
+
+    /**
+     * Get the number of calls rejected because the bulkhead was full.
+     *
+     * @return The number of rejected calls
+     */
+    public long getRejectedBulkhead() {
+        return rejectedBulkhead.get();
+    }
+
+    private boolean isCurrentTrial(long permit) {
+        return state == State.HALF_OPEN && permit == trialRound;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMs = System.currentTimeMillis();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,65 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.CircuitBreakerConfig;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one {@link CircuitBreaker} per upstream host, so trouble on api.spotify.com does not block
+ * calls to accounts.spotify.com and vice versa. Each breaker's state and rejection counts are
+ * published as metrics.
+ */
+@Component
+@RequiredArgsConstructor
+public class CircuitBreakerRegistry {
+
+    private final CircuitBreakerConfig circuitBreakerConfig;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Get the breaker for the host of a URI, creating it on first use.
+     *
+     * @param uri The URI to call
+     * @return The breaker for its host
+     */
+    public CircuitBreaker forUri(URI uri) {
+        String host = uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        return breakers.computeIfAbsent(host, this::create);
+    }
+
+    /**
+     * Get all breakers created so far.
+     *
+     * @return The breakers
+     */
+    public Collection<CircuitBreaker> getAll() {
+        return breakers.values();
+    }
+
+    private CircuitBreaker create(String host) {
+        CircuitBreaker breaker = new CircuitBreaker(host, circuitBreakerConfig);
+        Gauge.builder("spotify.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .tag("host", host)
+                .register(meterRegistry);
+        Gauge.builder("spotify.circuit.failure.rate", breaker, CircuitBreaker::getFailureRate)
+                .tag("host", host)
+                .register(meterRegistry);
+        FunctionCounter.builder("spotify.circuit.rejections", breaker, CircuitBreaker::getRejectedOpen)
+                .tags("host", host, "reason", "open")
+                .register(meterRegistry);
+        FunctionCounter.builder("spotify.circuit.rejections", breaker, CircuitBreaker::getRejectedBulkhead)
+                .tags("host", host, "reason", "bulkhead")
+                .register(meterRegistry);
+        return breaker;
+    }
+}
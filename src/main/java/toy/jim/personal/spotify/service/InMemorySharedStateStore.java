@@ -0,0 +1,120 @@
+package toy.jim.personal.spotify.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SharedStateStore} backed by concurrent maps in this JVM. The default; state is lost on
+ * restart and is not visible to other replicas, so it suits a single instance.
+ */
+public class InMemorySharedStateStore implements SharedStateStore {
+
+    private final Map<String, Map<String, Entry>> namespaces = new ConcurrentHashMap<>();
+
+    @Override
+    public Entry get(String namespace, String key) {
+        Entry entry = namespace(namespace).get(key);
+        return entry != null && !expired(entry, System.currentTimeMillis()) ? entry : null;
+    }
+
+    @Override
+    public void put(String namespace, String key, String value, long ttlMs) {
+        namespace(namespace).put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+    }
+
+    @Override
+    public boolean putIfAbsent(String namespace, String key, String value, long ttlMs) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(value, now + ttlMs);
+        return namespace(namespace).compute(key, (k, existing) ->
+                existing == null || expired(existing, now) ? entry : existing) == entry;
+    }
+
+    @Override
+    public boolean replace(String namespace, String key, String value) {
+        return namespace(namespace).computeIfPresent(key, (k, entry) -> new Entry(value, entry.expiresAtMs())) != null;
+    }
+
+    @Override
+    public void touch(String namespace, String key, long ttlMs) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        namespace(namespace).computeIfPresent(key, (k, entry) -> new Entry(entry.value(), expiresAt));
+    }
+
+    @Override
+    public String take(String namespace, String key) {
+        Entry entry = namespace(namespace).remove(key);
+        return entry != null && !expired(entry, System.currentTimeMillis()) ? entry.value() : null;
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        namespace(namespace).remove(key);
+    }
+
+    @Override
+    public boolean remove(String namespace, String key, String expectedValue) {
+        Map<String, Entry> entries = namespace(namespace);
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.value().equals(expectedValue)) {
+                return false;
+            }
+            // Fails if the entry was replaced or touched meanwhile; look again
+            if (entries.remove(key, entry)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void removeByPrefix(String namespace, String keyPrefix) {
+        namespace(namespace).keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    @Override
+    public List<String> keys(String namespace) {
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        namespace(namespace).forEach((key, entry) -> {
+            if (!expired(entry, now)) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    @Override
+    public int size(String namespace) {
+        long now = System.currentTimeMillis();
+        int size = 0;
+        for (Entry entry : namespace(namespace).values()) {
+            if (!expired(entry, now)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Map<String, Entry> entries : namespaces.values()) {
+            int before = entries.size();
+            entries.values().removeIf(entry -> expired(entry, now));
+            evicted += before - entries.size();
+        }
+        return evicted;
+    }
+
+    private Map<String, Entry> namespace(String namespace) {
+        return namespaces.computeIfAbsent(namespace, n -> new ConcurrentHashMap<>());
+    }
+
+    private static boolean expired(Entry entry, long now) {
+        return now > entry.expiresAtMs();
+    }
+}
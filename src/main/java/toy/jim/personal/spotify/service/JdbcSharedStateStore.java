@@ -0,0 +1,160 @@
+package toy.jim.personal.spotify.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * {@link SharedStateStore} backed by a single database table, so every replica pointed at the same
+ * database sees the same tokens, OAuth state and cached responses. With the embedded H2 driver and
+ * an AUTO_SERVER file URL the first replica to start serves the file to the others, which needs no
+ * separate database server; any other JDBC database can be used by changing the URL.
+ * Writes are plain UPDATE/INSERT statements rather than a vendor-specific upsert.
+ */
+@Slf4j
+public class JdbcSharedStateStore implements SharedStateStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String selectSql;
+    private final String updateSql;
+    private final String insertSql;
+    private final String replaceSql;
+    private final String touchSql;
+    private final String deleteSql;
+    private final String deleteIfUnchangedSql;
+    private final String deleteIfValueSql;
+    private final String deleteExpiredSql;
+    private final String deleteByPrefixSql;
+    private final String keysSql;
+    private final String countSql;
+    private final String evictSql;
+
+    /**
+     * @param jdbcTemplate     Template over the shared database
+     * @param table            The name of the table holding the state
+     * @param initializeSchema Whether to create the table if it does not exist
+     */
+    public JdbcSharedStateStore(JdbcTemplate jdbcTemplate, String table, boolean initializeSchema) {
+        this.jdbcTemplate = jdbcTemplate;
+        String byKey = " WHERE namespace = ? AND state_key = ?";
+        String live = " AND expires_at >= ?";
+        this.selectSql = "SELECT state_value, expires_at FROM " + table + byKey + live;
+        this.updateSql = "UPDATE " + table + " SET state_value = ?, expires_at = ?" + byKey;
+        this.insertSql = "INSERT INTO " + table + " (namespace, state_key, state_value, expires_at) VALUES (?, ?, ?, ?)";
+        this.replaceSql = "UPDATE " + table + " SET state_value = ?" + byKey + live;
+        this.touchSql = "UPDATE " + table + " SET expires_at = ?" + byKey + live;
+        this.deleteSql = "DELETE FROM " + table + byKey;
+        this.deleteIfUnchangedSql = "DELETE FROM " + table + byKey + " AND state_value = ? AND expires_at = ?";
+        this.deleteIfValueSql = "DELETE FROM " + table + byKey + " AND state_value = ?";
+        this.deleteExpiredSql = "DELETE FROM " + table + byKey + " AND expires_at < ?";
+        this.deleteByPrefixSql = "DELETE FROM " + table + " WHERE namespace = ? AND state_key LIKE ? ESCAPE '\\'";
+        this.keysSql = "SELECT state_key FROM " + table + " WHERE namespace = ?" + live;
+        this.countSql = "SELECT COUNT(*) FROM " + table + " WHERE namespace = ?" + live;
+        this.evictSql = "DELETE FROM " + table + " WHERE expires_at < ?";
+        if (initializeSchema) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "namespace VARCHAR(64) NOT NULL, "
+                    + "state_key VARCHAR(1024) NOT NULL, "
+                    + "state_value VARCHAR(1000000) NOT NULL, "
+                    + "expires_at BIGINT NOT NULL, "
+                    + "PRIMARY KEY (namespace, state_key))");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_expires_at ON " + table + " (expires_at)");
+            log.info("Shared state table {} is ready", table);
+        }
+    }
+
+    @Override
+    public Entry get(String namespace, String key) {
+        List<Entry> entries = jdbcTemplate.query(selectSql,
+                (rs, row) -> new Entry(rs.getString(1), rs.getLong(2)),
+                namespace, key, System.currentTimeMillis());
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    @Override
+    public void put(String namespace, String key, String value, long ttlMs) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (jdbcTemplate.update(updateSql, value, expiresAt, namespace, key) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(insertSql, namespace, key, value, expiresAt);
+        } catch (DuplicateKeyException e) {
+            // Another replica inserted the key between our update and insert
+            jdbcTemplate.update(updateSql, value, expiresAt, namespace, key);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String namespace, String key, String value, long ttlMs) {
+        long now = System.currentTimeMillis();
+        // An expired row still holds the primary key until the next eviction
+        jdbcTemplate.update(deleteExpiredSql, namespace, key, now);
+        try {
+            return jdbcTemplate.update(insertSql, namespace, key, value, now + ttlMs) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean replace(String namespace, String key, String value) {
+        return jdbcTemplate.update(replaceSql, value, namespace, key, System.currentTimeMillis()) > 0;
+    }
+
+    @Override
+    public void touch(String namespace, String key, long ttlMs) {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update(touchSql, now + ttlMs, namespace, key, now);
+    }
+
+    @Override
+    public String take(String namespace, String key) {
+        Entry entry = get(namespace, key);
+        if (entry == null) {
+            return null;
+        }
+        // Only the caller whose delete removes the row it read gets the value
+        int deleted = jdbcTemplate.update(deleteIfUnchangedSql, namespace, key, entry.value(), entry.expiresAtMs());
+        return deleted > 0 ? entry.value() : null;
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        jdbcTemplate.update(deleteSql, namespace, key);
+    }
+
+    @Override
+    public boolean remove(String namespace, String key, String expectedValue) {
+        return jdbcTemplate.update(deleteIfValueSql, namespace, key, expectedValue) > 0;
+    }
+
+    @Override
+    public void removeByPrefix(String namespace, String keyPrefix) {
+        String pattern = keyPrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        jdbcTemplate.update(deleteByPrefixSql, namespace, pattern);
+    }
+
+    @Override
+    public List<String> keys(String namespace) {
+        return jdbcTemplate.queryForList(keysSql, String.class, namespace, System.currentTimeMillis());
+    }
+
+    @Override
+    public int size(String namespace) {
+        Integer count = jdbcTemplate.queryForObject(countSql, Integer.class, namespace, System.currentTimeMillis());
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public int evictExpired() {
+        return jdbcTemplate.update(evictSql, System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+}
@@ -1,231 +1,520 @@
 package toy.jim.personal.spotify.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.util.EntityUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.UriComponentsBuilder;
 import toy.jim.personal.spotify.config.AuthConfig;
-import toy.jim.personal.spotify.model.SpotifyShowsResponse;
-import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+import toy.jim.personal.spotify.model.SpotifyToken;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
  * Service for handling OAuth authentication.
+ * Created eagerly even with lazy initialization, so the scheduled token refresh starts with the application.
  */
 @Slf4j
 @Service
+@Lazy(false)
 @RequiredArgsConstructor
 public class OAuthService {
 
+    // Interval at which a replica waiting for another one's token refresh checks for the result
+    private static final long REFRESH_LEASE_POLL_MS = 50;
+
     private final AuthConfig authConfig;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClients.createDefault();
+    private final SpotifyJson spotifyJson;
+    private final HttpClient httpClient;
+    private final TokenStore tokenStore;
+    private final MeterRegistry meterRegistry;
+    private final RequestCoalescer requestCoalescer;
+    private final SpotifyRateLimiter rateLimiter;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final SpotifyClientMetrics clientMetrics;
+    private final SpotifyRequestTemplates requestTemplates;
+    private final SpotifyEndpointCatalog endpoints;
+
+    // Cached client credentials token; swapped atomically so readers never block on a refresh
+    private final AtomicReference<SpotifyToken> appToken = new AtomicReference<>();
 
-    // Store state parameter to validate callback requests
-    private String stateParam;
+    // Serializes refreshes of the client credentials token; a lock rather than synchronized so that a virtual
+    // thread waiting on the token endpoint does not pin its carrier
+    private final ReentrantLock appTokenLock = new ReentrantLock();
 
-    // Store the bearer token for authenticated requests
-    private String bearerToken;
+    // Runs token refreshes started by non-blocking callers, one virtual thread each
+    private final Executor refreshExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("token-refresh-", 0).factory());
 
     /**
      * Get an OAuth access token using client credentials flow.
+     * The token is cached and reused until it is within the refresh skew of its expiry; the scheduler refreshes
+     * it in the background before then, so callers only hit the token endpoint on a cold start.
      *
      * @return The access token or null if the request fails
      */
     public String getAccessToken() {
-        HttpPost request = new HttpPost(authConfig.getTokenUrl());
+        SpotifyToken token = appToken.get();
+        if (token != null && !token.expiresWithin(Instant.now(), authConfig.getRefreshSkewMs())) {
+            meterRegistry.counter("spotify.app.token.requests", "result", "hit").increment();
+            return token.accessToken();
+        }
 
-        // Set OAuth-specific headers
-        String auth = authConfig.getClientId() + ":" + authConfig.getClientSecret();
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes());
-        request.setHeader("Authorization", "Basic " + encodedAuth);
-        request.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        SpotifyToken refreshed = refreshAppToken(authConfig.getRefreshSkewMs(), true);
+        if (refreshed != null) {
+            return refreshed.accessToken();
+        }
+        // The refresh failed, but a token that has not expired yet is still usable
+        token = appToken.get();
+        return token != null && !token.expiresWithin(Instant.now(), 0) ? token.accessToken() : null;
+    }
 
-        // Set body
-        StringEntity entity = new StringEntity("grant_type=client_credentials",
-                ContentType.APPLICATION_FORM_URLENCODED);
-        request.setEntity(entity);
+    /**
+     * Get the client credentials token without blocking the calling thread.
+     * A cached token outside the refresh skew completes immediately; otherwise {@link #getAccessToken()} runs on
+     * a virtual thread, so the caller neither waits for the refresh lock nor for the token endpoint.
+     *
+     * @return A future completed with the access token, or with null if the request fails
+     */
+    public CompletableFuture<String> getAccessTokenAsync() {
+        SpotifyToken token = appToken.get();
+        if (token != null && !token.expiresWithin(Instant.now(), authConfig.getRefreshSkewMs())) {
+            meterRegistry.counter("spotify.app.token.requests", "result", "hit").increment();
+            return CompletableFuture.completedFuture(token.accessToken());
+        }
+        return CompletableFuture.supplyAsync(this::getAccessToken, refreshExecutor);
+    }
 
-        return executeRequest(request, response -> {
-            JsonNode jsonNode = objectMapper.readTree(response);
-            if (jsonNode.has("access_token")) {
-                return jsonNode.get("access_token").asText();
+    /**
+     * Refresh the cached client credentials token in the background once it is within the refresh window.
+     * Readers keep being served the current token while the refresh is in progress.
+     */
+    @Scheduled(fixedDelayString = "${oauth.refresh-interval-ms:30000}")
+    public void refreshExpiringAppToken() {
+        SpotifyToken token = appToken.get();
+        if (token != null && token.expiresWithin(Instant.now(), authConfig.getProactiveRefreshWindowMs())) {
+            if (refreshAppToken(authConfig.getProactiveRefreshWindowMs(), false) == null) {
+                log.warn("Scheduled refresh of client credentials token failed");
             }
-            log.error("OAuth response does not contain access_token: {}", response);
-            return null;
-        });
+        }
     }
 
     /**
-     * Make an authenticated request to the Spotify API and deserialize the response into a SpotifyUser object.
+     * Request a new client credentials token and publish it to the cache, unless the cached token is no longer
+     * within the given window of its expiry. Only one refresh runs at a time; callers that waited for it find the
+     * token it published and return that without calling the token endpoint again.
      *
-     * @param url The URL to call
-     * @return The response as a SpotifyUser object or null if the request fails
+     * @param windowMs     The window before expiry within which the token is refreshed
+     * @param countRequest Whether to record the outcome under spotify.app.token.requests
+     * @return The current token, or null if the request fails
      */
-    public SpotifyUser getSpotifyUser(String url) {
-        if (bearerToken == null) {
-            log.error("Bearer token is null. User must authorize the application first.");
-            return null;
+    private SpotifyToken refreshAppToken(long windowMs, boolean countRequest) {
+        appTokenLock.lock();
+        try {
+            SpotifyToken current = appToken.get();
+            if (current != null && !current.expiresWithin(Instant.now(), windowMs)) {
+                if (countRequest) {
+                    meterRegistry.counter("spotify.app.token.requests", "result", "hit").increment();
+                }
+                return current;
+            }
+            if (countRequest) {
+                meterRegistry.counter("spotify.app.token.requests", "result", "miss").increment();
+            }
+
+            HttpPost request = requestTemplates.clientCredentialsRequest();
+            SpotifyToken token = meterRegistry.timer("spotify.app.token.refresh")
+                    .record(() -> executeRequest(request, response -> parseToken(response, null)));
+            if (token != null) {
+                appToken.set(token);
+            }
+            return token;
+        } finally {
+            appTokenLock.unlock();
         }
-        HttpGet request = createAuthenticatedRequest(new HttpGet(url), bearerToken);
-        return executeRequest(request, response ->
-                objectMapper.readValue(response, SpotifyUser.class));
     }
 
     /**
      * Generate the Spotify authorization URL for the authorization code flow.
      *
+     * @param sessionId The session starting the authorization
      * @return The authorization URL to redirect the user to
      */
-    public String getAuthorizationUrl() {
+    public String getAuthorizationUrl(String sessionId) {
         // Generate a random state parameter to prevent CSRF attacks
-        stateParam = UUID.randomUUID().toString();
+        String stateParam = UUID.randomUUID().toString();
+        tokenStore.putState(sessionId, stateParam);
 
-        // Build the authorization URL with required parameters
-        return UriComponentsBuilder.fromUriString(authConfig.getAuthorizationUrl())
-                .queryParam("client_id", authConfig.getClientId())
-                .queryParam("response_type", "code")
-                .queryParam("redirect_uri", authConfig.getRedirectUri())
-                .queryParam("scope", authConfig.getScopes())
-                .queryParam("state", stateParam)
-                .build()
-                .toUriString();
+        return requestTemplates.authorizationUrl(stateParam);
     }
 
     /**
      * Validate the state parameter from the callback to prevent CSRF attacks.
      *
-     * @param state The state parameter from the callback
+     * @param sessionId The session completing the authorization
+     * @param state     The state parameter from the callback
      * @return True if the state parameter is valid, false otherwise
      */
-    public boolean validateState(String state) {
-        return state != null && state.equals(stateParam);
+    public boolean validateState(String sessionId, String state) {
+        return tokenStore.consumeState(sessionId, state);
     }
 
     /**
      * Exchange an authorization code for an access token.
      * This method implements the authorization code flow.
      *
-     * @param code The authorization code received from Spotify
+     * @param sessionId The session the token is stored for
+     * @param code      The authorization code received from Spotify
      * @return The access token or null if the exchange fails
      */
-    public String exchangeCodeForToken(String code) {
-        HttpPost request = new HttpPost(authConfig.getTokenUrl());
+    public String exchangeCodeForToken(String sessionId, String code) {
+        HttpPost request = requestTemplates.authorizationCodeRequest(code);
 
-        // Set OAuth-specific headers
-        String auth = authConfig.getClientId() + ":" + authConfig.getClientSecret();
-        String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes());
-        request.setHeader("Authorization", "Basic " + encodedAuth);
-        request.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        // Execute the request and store the token for the session
+        SpotifyToken token = executeRequest(request, response -> parseToken(response, null));
 
-        // Prepare the request body
-        String requestBody;
-        try {
-            requestBody = "grant_type=authorization_code" +
-                    "&code=" + URLEncoder.encode(code, StandardCharsets.UTF_8.toString()) +
-                    "&redirect_uri=" + URLEncoder.encode(authConfig.getRedirectUri(), StandardCharsets.UTF_8.toString());
-        } catch (UnsupportedEncodingException e) {
-            log.error("Error encoding request parameters: {}", e.getMessage());
+        if (token == null) {
             return null;
         }
+        tokenStore.put(sessionId, token);
+        return token.accessToken();
+    }
 
-        // Set body
-        StringEntity entity = new StringEntity(requestBody, ContentType.APPLICATION_FORM_URLENCODED);
-        request.setEntity(entity);
+    /**
+     * Refresh the token of a session using its refresh token.
+     * Concurrent callers for the same session share a single call to the token endpoint, and across replicas
+     * only the holder of the session's refresh lease calls it; the others wait for the token it publishes.
+     *
+     * @param sessionId The session whose token is refreshed
+     * @return The refreshed token, or null if the session has no refresh token or the refresh fails
+     */
+    public SpotifyToken refreshToken(String sessionId) {
+        return refreshToken(sessionId, authConfig.getRefreshSkewMs());
+    }
 
-        // Execute the request and store the token
-        bearerToken = executeRequest(request, response -> {
-            JsonNode jsonNode = objectMapper.readTree(response);
-            if (jsonNode.has("access_token")) {
-                return jsonNode.get("access_token").asText();
+    /**
+     * Refresh the token of a session unless it is no longer within the given window of its expiry.
+     *
+     * @param sessionId The session whose token is refreshed
+     * @param windowMs  The window before expiry within which the token is refreshed
+     * @return The current token, or null if the session has no refresh token or the refresh fails
+     */
+    private SpotifyToken refreshToken(String sessionId, long windowMs) {
+        return requestCoalescer.execute(refreshKey(sessionId), () -> refreshUnderLease(sessionId, windowMs));
+    }
+
+    /**
+     * Asynchronous variant of {@link #refreshToken(String)}, sharing its single flight and refresh lease.
+     * The refresh runs on a virtual thread, so neither the caller nor a pooled thread waits on the token
+     * endpoint or on another replica's lease.
+     *
+     * @param sessionId The session whose token is refreshed
+     * @return A future completed with the refreshed token, or with null if the session has no refresh token
+     * or the refresh fails
+     */
+    public CompletableFuture<SpotifyToken> refreshTokenAsync(String sessionId) {
+        long windowMs = authConfig.getRefreshSkewMs();
+        return requestCoalescer.executeAsync(refreshKey(sessionId),
+                () -> CompletableFuture.supplyAsync(() -> refreshUnderLease(sessionId, windowMs), refreshExecutor));
+    }
+
+    private static String refreshKey(String sessionId) {
+        return "refresh " + sessionId;
+    }
+
+    /**
+     * Refresh the token of a session under its refresh lease, or wait for the replica holding the lease
+     * to publish the refreshed token.
+     *
+     * @param sessionId The session whose token is refreshed
+     * @param windowMs  The window before expiry within which the token is refreshed
+     * @return The current token, or null if the session has no refresh token or the refresh fails
+     */
+    private SpotifyToken refreshUnderLease(String sessionId, long windowMs) {
+        long deadline = System.currentTimeMillis() + authConfig.getRefreshLeaseMs();
+        while (!tokenStore.tryLockRefresh(sessionId, authConfig.getRefreshLeaseMs())) {
+            SpotifyToken current = tokenStore.peek(sessionId);
+            if (current == null || !current.expiresWithin(Instant.now(), windowMs)) {
+                // Another replica refreshed the token
+                return current;
             }
-            log.error("OAuth response does not contain access_token: {}", response);
-            return null;
-        });
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("Timed out waiting for another replica to refresh the session token");
+                return null;
+            }
+            try {
+                Thread.sleep(REFRESH_LEASE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        try {
+            SpotifyToken current = tokenStore.peek(sessionId);
+            if (current != null && !current.expiresWithin(Instant.now(), windowMs)) {
+                // Another caller refreshed the token between our expiry check and now
+                return current;
+            }
+            if (current == null || current.refreshToken() == null) {
+                return null;
+            }
+            SpotifyToken refreshed = requestRefresh(current.refreshToken());
+            if (refreshed != null) {
+                tokenStore.update(sessionId, refreshed);
+            }
+            return refreshed;
+        } finally {
+            tokenStore.unlockRefresh(sessionId);
+        }
+    }
+
+    /**
+     * Proactively refresh tokens that will expire within the configured refresh window,
+     * so user requests rarely have to wait on the token endpoint.
+     * Sessions that another replica is refreshing are left to it.
+     */
+    @Scheduled(fixedDelayString = "${oauth.refresh-interval-ms:30000}")
+    public void refreshExpiringTokens() {
+        Instant now = Instant.now();
+        for (String sessionId : tokenStore.sessionIds()) {
+            SpotifyToken token = tokenStore.peek(sessionId);
+            if (token != null && token.refreshToken() != null
+                    && token.expiresWithin(now, authConfig.getProactiveRefreshWindowMs())
+                    && !tokenStore.isRefreshLocked(sessionId)) {
+                if (refreshToken(sessionId, authConfig.getProactiveRefreshWindowMs()) == null) {
+                    log.warn("Scheduled token refresh failed for session");
+                }
+            }
+        }
+    }
+
+    /**
+     * Request a new access token from the token endpoint using a refresh token.
+     *
+     * @param refreshToken The refresh token
+     * @return The new token or null if the request fails
+     */
+    private SpotifyToken requestRefresh(String refreshToken) {
+        HttpPost request = requestTemplates.refreshTokenRequest(refreshToken);
 
-        return bearerToken;
+        // Spotify may omit refresh_token on refresh, in which case the current one stays valid
+        return executeRequest(request, response -> parseToken(response, refreshToken));
     }
 
     /**
-     * Creates an authenticated request with Bearer token
+     * Parse a token endpoint response into a SpotifyToken.
      *
-     * @param request     The HTTP request to configure
-     * @param accessToken The OAuth access token
-     * @return The configured HTTP request
+     * @param response            The response body
+     * @param fallbackRefreshToken The refresh token to keep if the response does not rotate it
+     * @return The token or null if the response does not contain an access token
      */
-    private <T extends HttpRequestBase> T createAuthenticatedRequest(T request, String accessToken) {
-        request.setHeader("Authorization", "Bearer " + accessToken);
-        request.setHeader("Content-Type", "application/json");
-        return request;
+    private SpotifyToken parseToken(InputStream response, String fallbackRefreshToken) throws IOException {
+        SpotifyTokenResponse token = spotifyJson.read(response, SpotifyTokenResponse.class);
+        if (token.access_token() == null) {
+            log.error("OAuth response does not contain access_token: {} {}", token.error(), token.error_description());
+            return null;
+        }
+        String refreshToken = token.refresh_token() != null ? token.refresh_token() : fallbackRefreshToken;
+        Instant expiresAt = token.expires_in() != null ? Instant.now().plusSeconds(token.expires_in()) : null;
+        return new SpotifyToken(token.access_token(), refreshToken, expiresAt);
     }
 
     /**
-     * Executes an HTTP request and processes the response using the provided response handler
+     * Executes an HTTP request and processes the response using the provided response handler.
+     * The response body is streamed straight into the handler.
      *
      * @param request         The HTTP request to execute
      * @param responseHandler The handler to process the response
      * @return The processed result or null if the request fails
      */
     private <T> T executeRequest(HttpUriRequest request, ResponseHandler<T> responseHandler) {
-        try {
-            HttpResponse response = httpClient.execute(request);
+        return execute(request, response -> {
             HttpEntity responseEntity = response.getEntity();
+            if (responseEntity == null) {
+                return null;
+            }
+            try (InputStream content = responseEntity.getContent()) {
+                return responseHandler.handleResponse(content);
+            }
+        });
+    }
 
-            if (responseEntity != null) {
-                String responseString = EntityUtils.toString(responseEntity);
-                return responseHandler.handleResponse(responseString);
+    /**
+     * Executes an HTTP request and hands the raw response to the provided processor.
+     * The entity is always fully consumed afterwards so the connection is released back to the pool.
+     * Only token endpoint calls go through here; Web API calls are sent by {@link SpotifyAsyncClient}.
+     * Every attempt needs permission from the host's circuit breaker, failing fast while the circuit is open
+     * or its bulkhead is full, and holds a permit from the rate limiter. A 429 answer, or a 5xx answer to an
+     * idempotent request, is retried after the Retry-After delay or a jittered backoff, up to the retry budget of
+     * the endpoint in the catalog; token POSTs are therefore only retried after a 429. Any other error status
+     * fails the request without reaching the processor.
+     * Each attempt is timed up to the arrival of the response headers; the processor's time (streaming
+     * and deserializing the body) and the body size are recorded separately.
+     *
+     * @param request   The HTTP request to execute
+     * @param processor The processor for the status, headers and body
+     * @return The processed result or null if the request fails
+     */
+    private <T> T execute(HttpUriRequest request, ResponseProcessor<T> processor) {
+        CircuitBreaker circuitBreaker = circuitBreakers.forUri(request.getURI());
+        SpotifyEndpoint policy = endpoints.policyFor(request.getURI());
+        for (int attempt = 0; ; attempt++) {
+            long breakerPermit = circuitBreaker.tryAcquire();
+            if (breakerPermit == CircuitBreaker.REJECTED) {
+                log.warn("Circuit for {} is open or at capacity, failing fast", circuitBreaker.getHost());
+                return null;
+            }
+            if (!rateLimiter.acquire()) {
+                circuitBreaker.cancel(breakerPermit);
+                log.error("No capacity to call {} within the acquire timeout", request.getURI());
+                return null;
+            }
+            boolean overloaded = true;
+            int status = 0;
+            String retryAfter = null;
+            long start = System.nanoTime();
+            try {
+                HttpResponse response = httpClient.execute(request);
+                status = response.getStatusLine().getStatusCode();
+                clientMetrics.recordRequest(request.getMethod(), request.getURI(), status, System.nanoTime() - start);
+                CountingEntity entity = response.getEntity() != null ? new CountingEntity(response.getEntity()) : null;
+                response.setEntity(entity);
+                try {
+                    overloaded = SpotifyRateLimiter.isRetryable(status);
+                    if (status < 400) {
+                        long processStart = System.nanoTime();
+                        T result = processor.process(response);
+                        if (result != null) {
+                            clientMetrics.recordDeserialization(request.getURI(), result.getClass(), System.nanoTime() - processStart);
+                        }
+                        return result;
+                    }
+                    Header retryAfterHeader = response.getFirstHeader("Retry-After");
+                    retryAfter = retryAfterHeader != null ? retryAfterHeader.getValue() : null;
+                    if (!policy.isRetryable(request.getMethod(), status)) {
+                        log.error("Request to {} failed with status {}", request.getURI(), status);
+                        return null;
+                    }
+                } finally {
+                    EntityUtils.consumeQuietly(entity);
+                    if (entity != null) {
+                        clientMetrics.recordResponseSize(request.getURI(), entity.bytesRead());
+                    }
+                }
+            } catch (IOException e) {
+                if (status == 0) {
+                    clientMetrics.recordRequest(request.getMethod(), request.getURI(), 0, System.nanoTime() - start);
+                }
+                log.error("Error executing request to {}: {}", request.getURI(), e.getMessage());
+                return null;
+            } finally {
+                rateLimiter.release(start, overloaded, status == 429 ? SpotifyRateLimiter.parseRetryAfterMs(retryAfter) : 0);
+                circuitBreaker.release(breakerPermit, status == 0 || status >= 500);
+            }
+
+            long delayMs = rateLimiter.retryDelayMs(attempt, policy.maxRetries(), retryAfter);
+            if (delayMs < 0) {
+                log.error("Request to {} failed with status {} after {} attempts", request.getURI(), status, attempt + 1);
+                return null;
+            }
+            log.warn("Request to {} failed with status {}, retrying in {} ms", request.getURI(), status, delayMs);
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
             }
-        } catch (IOException e) {
-            log.error("Error executing request to {}: {}", request.getURI(), e.getMessage());
         }
-        return null;
     }
 
     /**
-     * Make an authenticated request to the Spotify API and deserialize the response into a SpotifyShowsResponse object.
+     * Get the current bearer token for a session.
      *
-     * @param url The URL to call
-     * @return The response as a SpotifyShowsResponse object or null if the request fails
+     * @param sessionId The session ID
+     * @return The current bearer token or null if not set
      */
-    public SpotifyShowsResponse getSpotifyTracks(String url) {
-        if (bearerToken == null) {
-            log.error("Bearer token is null. User must authorize the application first.");
+    public String getBearerToken(String sessionId) {
+        SpotifyToken token = tokenStore.get(sessionId);
+        if (token == null) {
             return null;
         }
-        HttpGet request = createAuthenticatedRequest(new HttpGet(url), bearerToken);
-        return executeRequest(request, response ->
-                objectMapper.readValue(response, SpotifyShowsResponse.class));
+        Instant now = Instant.now();
+        if (token.refreshToken() != null && token.expiresWithin(now, authConfig.getRefreshSkewMs())) {
+            return bearerAfterRefresh(token, refreshToken(sessionId), now);
+        }
+        return token.accessToken();
     }
 
     /**
-     * Get the current bearer token.
+     * Get the current bearer token for a session without blocking the calling thread.
+     * A token that does not need refreshing completes immediately; otherwise the result follows
+     * {@link #refreshTokenAsync}.
      *
-     * @return The current bearer token or null if not set
+     * @param sessionId The session ID
+     * @return A future completed with the current bearer token, or with null if not set
      */
-    public String getBearerToken() {
-        return bearerToken;
+    public CompletableFuture<String> getBearerTokenAsync(String sessionId) {
+        SpotifyToken token = tokenStore.get(sessionId);
+        if (token == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (token.refreshToken() == null || !token.expiresWithin(Instant.now(), authConfig.getRefreshSkewMs())) {
+            return CompletableFuture.completedFuture(token.accessToken());
+        }
+        return refreshTokenAsync(sessionId)
+                .exceptionally(e -> {
+                    log.error("Error refreshing the session token: {}", e.getMessage());
+                    return null;
+                })
+                .thenApply(refreshed -> bearerAfterRefresh(token, refreshed, Instant.now()));
+    }
+
+    /**
+     * Pick the bearer token after a refresh: the refreshed one, or the previous one while it has not expired.
+     *
+     * @param token     The token before the refresh
+     * @param refreshed The refreshed token, or null if the refresh failed
+     * @param now       The current time
+     * @return The bearer token, or null if there is none that is still valid
+     */
+    private static String bearerAfterRefresh(SpotifyToken token, SpotifyToken refreshed, Instant now) {
+        if (refreshed != null) {
+            return refreshed.accessToken();
+        }
+        if (token.expiresWithin(now, 0)) {
+            log.error("Bearer token expired and could not be refreshed");
+            return null;
+        }
+        return token.accessToken();
+    }
+
+    /**
+     * Functional interface for processing a raw HTTP response
+     */
+    @FunctionalInterface
+    private interface ResponseProcessor<T> {
+        T process(HttpResponse response) throws IOException;
     }
 
     /**
@@ -233,6 +522,64 @@ public class OAuthService {
      */
     @FunctionalInterface
     private interface ResponseHandler<T> {
-        T handleResponse(String responseBody) throws IOException;
+        T handleResponse(InputStream responseBody) throws IOException;
+    }
+
+    /**
+     * Entity wrapper counting the body bytes read through it, including those skipped when it is consumed.
+     */
+    private static final class CountingEntity extends HttpEntityWrapper {
+
+        private CountingInputStream content;
+
+        CountingEntity(HttpEntity wrapped) {
+            super(wrapped);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                content = new CountingInputStream(super.getContent());
+            }
+            return content;
+        }
+
+        long bytesRead() {
+            return content != null ? content.count : 0;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
     }
 }
@@ -0,0 +1,115 @@
+package toy.jim.personal.spotify.service;
+
+import lombok.extern.slf4j.Slf4j;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Iterator over the pages of a paginated Spotify response, following each page's next link lazily.
+ * As soon as a page arrives the request for the following one is started, so it is usually ready
+ * by the time the caller has consumed the current page. At most two pages are held at once.
+ * Iteration ends early if a page cannot be fetched or its next link leaves the origin of the first page,
+ * which {@link #isIncomplete()} reports afterwards.
+ */
+@Slf4j
+public class PrefetchingPageIterator implements Iterator<SpotifyShowsResponse> {
+
+    private final Function<String, CompletableFuture<SpotifyShowsResponse>> fetchPage;
+    private final URI origin;
+    private final CompletableFuture<SpotifyShowsResponse> firstPage;
+    private CompletableFuture<SpotifyShowsResponse> pending;
+    private SpotifyShowsResponse current;
+    private boolean incomplete;
+
+    /**
+     * Create an iterator and start fetching the first page.
+     *
+     * @param firstUrl  The URL of the first page; next links are only followed on its scheme, host and port
+     * @param fetchPage Function fetching a page by URL, completing with null on failure
+     */
+    public PrefetchingPageIterator(String firstUrl, Function<String, CompletableFuture<SpotifyShowsResponse>> fetchPage) {
+        this.fetchPage = fetchPage;
+        this.origin = URI.create(firstUrl);
+        this.firstPage = fetchPage.apply(firstUrl);
+        this.pending = firstPage;
+    }
+
+    /**
+     * Wait for the first page without blocking the calling thread.
+     *
+     * @return A future completed with whether the first page could be fetched
+     */
+    public CompletableFuture<Boolean> firstPageAvailable() {
+        return firstPage.handle((page, e) -> page != null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current == null && pending != null) {
+            current = await(pending);
+            pending = null;
+            if (current == null) {
+                incomplete = true;
+            } else if (current.next() != null) {
+                if (sameOrigin(current.next())) {
+                    pending = fetchPage.apply(current.next());
+                } else {
+                    log.warn("Not following next link {} outside {}://{}", current.next(), origin.getScheme(), origin.getAuthority());
+                    incomplete = true;
+                }
+            }
+        }
+        return current != null;
+    }
+
+    @Override
+    public SpotifyShowsResponse next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SpotifyShowsResponse page = current;
+        current = null;
+        return page;
+    }
+
+    /**
+     * @return Whether iteration ended before the last page, because a page could not be fetched or its
+     * next link was not followed
+     */
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    private boolean sameOrigin(String url) {
+        try {
+            URI uri = URI.create(url);
+            return origin.getScheme().equalsIgnoreCase(uri.getScheme())
+                    && origin.getHost().equalsIgnoreCase(uri.getHost())
+                    && port(origin) == port(uri);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "http".equalsIgnoreCase(uri.getScheme()) ? 80 : 443;
+    }
+
+    private static SpotifyShowsResponse await(CompletableFuture<SpotifyShowsResponse> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            log.error("Error fetching page: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package toy.jim.personal.spotify.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for upstream calls.
+ * Callers that arrive while a call with the same key is in flight wait for and share its result
+ * instead of issuing their own request.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Execute a call, or join the identical call that is already in flight.
+     *
+     * @param key  The key identifying identical calls
+     * @param call The call to execute if none is in flight
+     * @return The result of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Start an asynchronous call, or join the identical call that is already in flight.
+     * Every caller gets its own copy of the shared future, so one caller cancelling or completing
+     * its future does not affect the others.
+     *
+     * @param key  The key identifying identical calls
+     * @param call The call to start if none is in flight
+     * @return A future completed with the result of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return (CompletableFuture<T>) existing.copy();
+        }
+
+        try {
+            call.get().whenComplete((result, error) -> {
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return (CompletableFuture<T>) flight.copy();
+    }
+
+    /**
+     * Get the number of calls currently in flight.
+     *
+     * @return The number of calls
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,136 @@
+package toy.jim.personal.spotify.service;
+
+import java.util.List;
+
+/**
+ * Key-value store for state that every replica of the application must see: session tokens,
+ * pending OAuth state parameters and cached Spotify responses.
+ * Entries are strings grouped by namespace and expire at an absolute time; expired entries are
+ * never returned, and {@link #evictExpired()} reclaims their space.
+ * The store is selected with shared-state.type: "memory" keeps state in this JVM, "jdbc" keeps it
+ * in a database shared by all replicas.
+ */
+public interface SharedStateStore {
+
+    /**
+     * Get an entry.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @return The entry or null if there is none or it has expired
+     */
+    Entry get(String namespace, String key);
+
+    /**
+     * Store or replace an entry.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @param value     The value
+     * @param ttlMs     Time in milliseconds until the entry expires
+     */
+    void put(String namespace, String key, String value, long ttlMs);
+
+    /**
+     * Store an entry unless a live one exists. Of concurrent callers, on any replica, only one succeeds.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @param value     The value
+     * @param ttlMs     Time in milliseconds until the entry expires
+     * @return True if the entry was stored
+     */
+    boolean putIfAbsent(String namespace, String key, String value, long ttlMs);
+
+    /**
+     * Replace the value of an existing entry, keeping its expiry time.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @param value     The new value
+     * @return True if the entry existed and was replaced
+     */
+    boolean replace(String namespace, String key, String value);
+
+    /**
+     * Extend the expiry time of an existing entry.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @param ttlMs     Time in milliseconds from now until the entry expires
+     */
+    void touch(String namespace, String key, long ttlMs);
+
+    /**
+     * Remove an entry and return its value. Of concurrent callers, on any replica, only one gets the value.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     * @return The value or null if there was none or it had expired
+     */
+    String take(String namespace, String key);
+
+    /**
+     * Remove an entry.
+     *
+     * @param namespace The namespace
+     * @param key       The key
+     */
+    void remove(String namespace, String key);
+
+    /**
+     * Remove an entry only if it still holds the given value, as one atomic step on every replica.
+     *
+     * @param namespace     The namespace
+     * @param key           The key
+     * @param expectedValue The value the entry must hold
+     * @return True if the entry held the value and was removed
+     */
+    boolean remove(String namespace, String key, String expectedValue);
+
+    /**
+     * Remove every entry whose key starts with a prefix.
+     *
+     * @param namespace The namespace
+     * @param keyPrefix The key prefix
+     */
+    void removeByPrefix(String namespace, String keyPrefix);
+
+    /**
+     * Get the keys of the live entries in a namespace.
+     *
+     * @param namespace The namespace
+     * @return The keys
+     */
+    List<String> keys(String namespace);
+
+    /**
+     * Get the number of live entries in a namespace.
+     *
+     * @param namespace The namespace
+     * @return The number of entries
+     */
+    int size(String namespace);
+
+    /**
+     * Remove expired entries from every namespace.
+     *
+     * @return The number of entries removed
+     */
+    int evictExpired();
+
+    /**
+     * @return True if the state is visible to other replicas, false if it lives in this JVM only
+     */
+    default boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Stored value and the time at which it expires.
+     *
+     * @param value       The value
+     * @param expiresAtMs Expiry time in epoch milliseconds
+     */
+    record Entry(String value, long expiresAtMs) {}
+}
@@ -0,0 +1,245 @@
+package toy.jim.personal.spotify.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import toy.jim.personal.spotify.model.ConditionalResponse;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Client for the Spotify Web API.
+ * Requests are sent on a non-blocking HTTP client and return a {@link CompletableFuture},
+ * so no thread is held while waiting for Spotify to answer.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpotifyAsyncClient {
+
+    private final OAuthService oAuthService;
+    private final HttpClient spotifyAsyncHttpClient;
+    private final SpotifyRequestTemplates requestTemplates;
+    private final SpotifyEndpointCatalog endpoints;
+    private final RequestCoalescer requestCoalescer;
+    private final SpotifyRateLimiter rateLimiter;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final SpotifyClientMetrics clientMetrics;
+    private final SpotifyJson spotifyJson;
+
+    /**
+     * Make an authenticated request to the Spotify API and deserialize the response into a SpotifyShowsResponse object.
+     *
+     * @param sessionId The session whose bearer token is used
+     * @param url       The URL to call
+     * @return A future completed with the SpotifyShowsResponse, or with null if the request fails
+     */
+    public CompletableFuture<SpotifyShowsResponse> getSpotifyTracks(String sessionId, String url) {
+        return getConditional(sessionId, url, SpotifyShowsResponse.class, null)
+                .thenApply(ConditionalResponse::body);
+    }
+
+    /**
+     * Make a conditional authenticated GET to the Spotify API without blocking.
+     * If an entity tag is given it is sent as If-None-Match, and a 304 answer is returned
+     * without deserializing a body. A bearer token that needs refreshing is refreshed first, also without
+     * blocking the calling thread.
+     * A request that fails completes with a {@link ConditionalResponse#failed failed} response whose status
+     * tells why: 0 if Spotify could not be reached, the error status otherwise, and 401 if the session has
+     * no token.
+     *
+     * @param sessionId The session whose bearer token is used
+     * @param url       The URL to call
+     * @param type      The type to deserialize the body into
+     * @param etag      The entity tag of the cached representation, or null
+     * @return A future completed with the response
+     */
+    public <T> CompletableFuture<ConditionalResponse<T>> getConditional(String sessionId, String url,
+                                                                      Class<T> type, String etag) {
+        return oAuthService.getBearerTokenAsync(sessionId).thenCompose(bearerToken -> {
+            if (bearerToken == null) {
+                log.error("Bearer token is null. User must authorize the application first.");
+                return CompletableFuture.completedFuture(ConditionalResponse.failed(401));
+            }
+            return fetch(url, bearerToken, type, etag);
+        });
+    }
+
+    /**
+     * Make a GET to the Spotify API with the client credentials token, for catalog data that does
+     * not belong to a user, so that requests on behalf of different users can share one call.
+     *
+     * @param url  The URL to call
+     * @param type The type to deserialize the body into
+     * @return A future completed with the body, or with null if the request fails
+     */
+    public <T> CompletableFuture<T> getWithAppToken(String url, Class<T> type) {
+        return oAuthService.getAccessTokenAsync().thenCompose(accessToken -> {
+            if (accessToken == null) {
+                log.error("No client credentials token available for {}", url);
+                return CompletableFuture.completedFuture(null);
+            }
+            return fetch(url, accessToken, type, null).thenApply(ConditionalResponse::body);
+        });
+    }
+
+    /**
+     * Send a coalesced, optionally conditional GET with the given bearer token.
+     */
+    private <T> CompletableFuture<ConditionalResponse<T>> fetch(String url, String bearerToken, Class<T> type, String etag) {
+        String key = coalescingKey(url, type, bearerToken, etag);
+        return requestCoalescer.executeAsync(key, () -> {
+            HttpRequest.Builder request = requestTemplates.asyncBearerGet(url, bearerToken);
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            HttpRequest built = request.build();
+            return send(built, 0).handle((response, error) -> {
+                if (error != null) {
+                    log.error("Error executing request to {}: {}", url, error.getMessage());
+                    return ConditionalResponse.<T>failed(0);
+                }
+                return toConditionalResponse(built.uri(), response, type, etag);
+            });
+        });
+    }
+
+    /**
+     * Send a request once the host's circuit breaker and the rate limiter allow it, retrying 429 and 5xx
+     * answers after the Retry-After delay or a jittered backoff, up to the retry budget of the endpoint in
+     * the catalog. The wait between attempts is scheduled, not slept. An open circuit or full bulkhead
+     * fails the request immediately.
+     *
+     * @param request The request to send
+     * @param attempt The zero-based number of this attempt
+     * @return A future completed with the final response
+     */
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request, int attempt) {
+        CircuitBreaker circuitBreaker = circuitBreakers.forUri(request.uri());
+        long breakerPermit = circuitBreaker.tryAcquire();
+        if (breakerPermit == CircuitBreaker.REJECTED) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Circuit for " + circuitBreaker.getHost() + " is open or at capacity"));
+        }
+        return rateLimiter.acquireAsync()
+                .whenComplete((permit, error) -> {
+                    if (error != null) {
+                        circuitBreaker.cancel(breakerPermit);
+                    }
+                })
+                .thenCompose(permit -> {
+                    long sentAtNanos = System.nanoTime();
+                    return timed(request).whenComplete((response, error) -> {
+                        boolean overloaded = error != null || SpotifyRateLimiter.isRetryable(response.statusCode());
+                        long retryAfterMs = response != null && response.statusCode() == 429
+                                ? SpotifyRateLimiter.parseRetryAfterMs(retryAfter(response)) : 0;
+                        rateLimiter.release(sentAtNanos, overloaded, retryAfterMs);
+                        circuitBreaker.release(breakerPermit, error != null || response.statusCode() >= 500);
+                    });
+                })
+                .thenCompose(response -> {
+                    SpotifyEndpoint policy = endpoints.policyFor(request.uri());
+                    if (!policy.isRetryable(request.method(), response.statusCode())) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    long delayMs = rateLimiter.retryDelayMs(attempt, policy.maxRetries(), retryAfter(response));
+                    if (delayMs < 0) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    log.warn("Request to {} failed with status {}, retrying in {} ms",
+                            request.uri(), response.statusCode(), delayMs);
+                    return CompletableFuture.supplyAsync(() -> request,
+                                    CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                            .thenCompose(retry -> send(retry, attempt + 1));
+                });
+    }
+
+    /**
+     * Send a request and record its duration, including reading the body, under spotify.client.requests.
+     * The request counts as in flight on the non-blocking client until it completes.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> timed(HttpRequest request) {
+        long start = System.nanoTime();
+        clientMetrics.asyncRequestSent();
+        return spotifyAsyncHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> {
+                    clientMetrics.asyncRequestCompleted();
+                    clientMetrics.recordRequest(request.method(), request.uri(),
+                            response != null ? response.statusCode() : 0, System.nanoTime() - start);
+                });
+    }
+
+    /**
+     * Open the body of a response, inflating it if Spotify sent it gzip-compressed.
+     */
+    private static InputStream bodyStream(HttpResponse<byte[]> response) throws IOException {
+        InputStream body = new ByteArrayInputStream(response.body());
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(body) : body;
+    }
+
+    private static String retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").orElse(null);
+    }
+
+    /**
+     * Convert a raw response into a ConditionalResponse, deserializing the body unless it is a 304.
+     * The recorded response size is that of the body as received, compressed or not.
+     * Error statuses give a failed response instead of deserializing an error body.
+     *
+     * @param uri      The URI that was called
+     * @param response The raw response
+     * @param type     The type to deserialize the body into
+     * @param etag     The entity tag that was sent, used if a 304 does not repeat it
+     * @return The conditional response
+     */
+    private <T> ConditionalResponse<T> toConditionalResponse(URI uri, HttpResponse<byte[]> response,
+                                                            Class<T> type, String etag) {
+        String responseEtag = response.headers().firstValue("ETag").orElse(null);
+        if (response.statusCode() == 304) {
+            return ConditionalResponse.notModified(responseEtag != null ? responseEtag : etag);
+        }
+        if (response.statusCode() >= 400) {
+            log.error("Request to {} failed with status {}", uri, response.statusCode());
+            return ConditionalResponse.failed(response.statusCode());
+        }
+        clientMetrics.recordResponseSize(uri, response.body().length);
+        try {
+            long start = System.nanoTime();
+            T body = spotifyJson.read(bodyStream(response), type);
+            clientMetrics.recordDeserialization(uri, type, System.nanoTime() - start);
+            return new ConditionalResponse<>(body, responseEtag, false);
+        } catch (IOException e) {
+            log.error("Cannot read the response from {}: {}", uri, e.getMessage());
+            return ConditionalResponse.failed(response.statusCode());
+        }
+    }
+
+    /**
+     * Build the key under which identical in-flight GETs are coalesced.
+     * The type separates projections of the same URL (e.g. SpotifyUser and SpotifyProfileView),
+     * which must never share a result.
+     *
+     * @param url         The URL to call
+     * @param type        The type the body is deserialized into
+     * @param bearerToken The bearer token the call is made with
+     * @param etag        The If-None-Match value, or null
+     * @return The coalescing key
+     */
+    private static String coalescingKey(String url, Class<?> type, String bearerToken, String etag) {
+        return "GET " + url + " " + type.getName() + " " + bearerToken + (etag != null ? " " + etag : "");
+    }
+}
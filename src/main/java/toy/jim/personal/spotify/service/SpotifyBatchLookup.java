@@ -0,0 +1,205 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import toy.jim.personal.spotify.config.BatchLookupConfig;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static toy.jim.personal.spotify.service.SpotifyEndpointCatalog.ARTISTS;
+import static toy.jim.personal.spotify.service.SpotifyEndpointCatalog.TRACKS;
+
+/**
+ * Batched lookup of artists and tracks by ID.
+ * IDs requested by any caller within a short window are collected and fetched with Spotify's multi-ID
+ * endpoints (?ids=a,b,c), up to the maximum batch size per call; a full batch is sent at once. Each caller's
+ * future is completed with its own item from the shared response, and an ID requested twice in the same
+ * window is fetched once. Catalog data does not depend on the user, so batches are fetched with the client
+ * credentials token and are shared across sessions.
+ */
+@Slf4j
+@Service
+public class SpotifyBatchLookup {
+
+    private static final Pattern SPOTIFY_ID = Pattern.compile("[0-9A-Za-z]{1,64}");
+
+    private final BatchLookupConfig batchLookupConfig;
+    private final Batcher<SpotifyShowsResponse.Item> artists;
+    private final Batcher<SpotifyTracksResponse.Track> tracks;
+
+    public SpotifyBatchLookup(SpotifyAsyncClient spotifyAsyncClient, SpotifyEndpointCatalog endpoints,
+                              BatchLookupConfig batchLookupConfig, MeterRegistry meterRegistry) {
+        this.batchLookupConfig = batchLookupConfig;
+        this.artists = new Batcher<>(ARTISTS, endpoints.get(ARTISTS), url -> spotifyAsyncClient
+                .getWithAppToken(url, SpotifyArtistsResponse.class)
+                .thenApply(response -> response != null ? response.artists() : null), meterRegistry);
+        this.tracks = new Batcher<>(TRACKS, endpoints.get(TRACKS), url -> spotifyAsyncClient
+                .getWithAppToken(url, SpotifyTracksResponse.class)
+                .thenApply(response -> response != null ? response.tracks() : null), meterRegistry);
+    }
+
+    /**
+     * Get an artist by ID, as part of the next batch.
+     *
+     * @param id The Spotify artist ID
+     * @return A future completed with the artist, or with null if it is unknown or could not be fetched
+     */
+    public CompletableFuture<SpotifyShowsResponse.Item> getArtist(String id) {
+        return artists.get(id);
+    }
+
+    /**
+     * Get several artists by ID, as part of the next batches.
+     *
+     * @param ids The Spotify artist IDs
+     * @return A future completed with the artists in the order of the IDs, with null for those that are unknown or could not be fetched
+     */
+    public CompletableFuture<List<SpotifyShowsResponse.Item>> getArtists(List<String> ids) {
+        return getAll(ids, artists);
+    }
+
+    /**
+     * Get a track by ID, as part of the next batch.
+     *
+     * @param id The Spotify track ID
+     * @return A future completed with the track, or with null if it is unknown or could not be fetched
+     */
+    public CompletableFuture<SpotifyTracksResponse.Track> getTrack(String id) {
+        return tracks.get(id);
+    }
+
+    /**
+     * Get several tracks by ID, as part of the next batches.
+     *
+     * @param ids The Spotify track IDs
+     * @return A future completed with the tracks in the order of the IDs, with null for those that are unknown or could not be fetched
+     */
+    public CompletableFuture<List<SpotifyTracksResponse.Track>> getTracks(List<String> ids) {
+        return getAll(ids, tracks);
+    }
+
+    private static <T> CompletableFuture<List<T>> getAll(List<String> ids, Batcher<T> batcher) {
+        List<CompletableFuture<T>> futures = ids.stream().map(batcher::get).toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(done -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Collects the IDs of one kind of lookup and sends them in batches.
+     *
+     * @param <T> The type of the looked up items
+     */
+    private final class Batcher<T> {
+
+        private final String name;
+        private final String idsUrl;
+        private final Function<String, CompletableFuture<List<T>>> fetch;
+        private final Counter requestedIds;
+        private final DistributionSummary batchSizes;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<String, CompletableFuture<T>> pending = new LinkedHashMap<>();
+
+        private Batcher(String name, SpotifyEndpoint endpoint, Function<String, CompletableFuture<List<T>>> fetch,
+                        MeterRegistry meterRegistry) {
+            this.name = name;
+            this.idsUrl = endpoint.requestUrl("ids=");
+            this.fetch = fetch;
+            this.requestedIds = meterRegistry.counter("spotify.batch.lookup.ids", "endpoint", name);
+            this.batchSizes = DistributionSummary.builder("spotify.batch.lookup.size")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * Add an ID to the pending batch, starting the window if it is the first one and sending
+         * the batch if it is full.
+         */
+        private CompletableFuture<T> get(String id) {
+            if (id == null || !SPOTIFY_ID.matcher(id).matches()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            requestedIds.increment();
+            CompletableFuture<T> future;
+            Map<String, CompletableFuture<T>> full = null;
+            lock.lock();
+            try {
+                future = pending.get(id);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    pending.put(id, future);
+                    if (pending.size() == 1) {
+                        Map<String, CompletableFuture<T>> batch = pending;
+                        CompletableFuture.runAsync(() -> flush(batch), CompletableFuture.delayedExecutor(
+                                batchLookupConfig.getWindowMs(), TimeUnit.MILLISECONDS));
+                    }
+                    if (pending.size() >= batchLookupConfig.getMaxBatchSize()) {
+                        full = pending;
+                        pending = new LinkedHashMap<>();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (full != null) {
+                send(full);
+            }
+            // A copy, so a caller cancelling or timing out its future does not affect others waiting on the same ID
+            return future.copy();
+        }
+
+        /**
+         * Send the batch whose window has ended, unless it was already sent because it filled up.
+         */
+        private void flush(Map<String, CompletableFuture<T>> batch) {
+            lock.lock();
+            try {
+                if (pending != batch) {
+                    return;
+                }
+                pending = new LinkedHashMap<>();
+            } finally {
+                lock.unlock();
+            }
+            send(batch);
+        }
+
+        /**
+         * Fetch a batch with one multi-ID call and complete each ID's future with its item.
+         * Spotify answers in the order of the requested IDs, with null for unknown ones.
+         */
+        private void send(Map<String, CompletableFuture<T>> batch) {
+            List<String> ids = new ArrayList<>(batch.keySet());
+            batchSizes.record(ids.size());
+            CompletableFuture<List<T>> response;
+            try {
+                response = fetch.apply(idsUrl + String.join(",", ids));
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((items, error) -> {
+                if (error != null || items == null) {
+                    log.warn("Batch lookup of {} {} failed", ids.size(), name);
+                }
+                for (int i = 0; i < ids.size(); i++) {
+                    T item = error == null && items != null && i < items.size() ? items.get(i) : null;
+                    batch.get(ids.get(i)).complete(item);
+                }
+            });
+        }
+    }
+}
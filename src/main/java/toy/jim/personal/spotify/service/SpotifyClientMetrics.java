@@ -0,0 +1,129 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Meters for outbound Spotify calls, so latency can be split between connection-pool queueing,
+ * the network round trip and JSON deserialization.
+ * <ul>
+ *     <li>spotify.client.requests: time until the response arrived, by method, host, endpoint template and status</li>
+ *     <li>spotify.client.response.size: response body size in bytes, by endpoint template</li>
+ *     <li>spotify.client.deserialization: time spent turning a body into a model, by endpoint template and type</li>
+ *     <li>spotify.http.async.in-flight: requests sent on the non-blocking client that are awaiting their response</li>
+ * </ul>
+ * Pool queueing is recorded by the pooled client itself (see HttpClientConfig). All timers publish
+ * percentile histograms so p50/p99 can be computed in Prometheus.
+ */
+@Component
+public class SpotifyClientMetrics {
+
+    // Spotify IDs are 22 base-62 characters; replacing them keeps the endpoint tag's cardinality bounded
+    private static final Pattern SPOTIFY_ID = Pattern.compile("/[0-9A-Za-z]{22}(?=/|$)");
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger asyncInFlight = new AtomicInteger();
+
+    public SpotifyClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("spotify.http.async.in-flight", asyncInFlight, AtomicInteger::get)
+                .description("Requests on the non-blocking Spotify client awaiting their response")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a request handed to the non-blocking client until {@link #asyncRequestCompleted} is called.
+     */
+    public void asyncRequestSent() {
+        asyncInFlight.incrementAndGet();
+    }
+
+    /**
+     * Stop counting a request on the non-blocking client, whatever its outcome.
+     */
+    public void asyncRequestCompleted() {
+        asyncInFlight.decrementAndGet();
+    }
+
+    /**
+     * Record the duration of one request attempt.
+     *
+     * @param method        The HTTP method
+     * @param uri           The URI that was called
+     * @param status        The status code, or 0 if no response was received
+     * @param durationNanos The duration in nanoseconds
+     */
+    public void recordRequest(String method, URI uri, int status, long durationNanos) {
+        Timer.builder("spotify.client.requests")
+                .description("Outbound Spotify requests")
+                .tags("method", method, "host", String.valueOf(uri.getHost()), "endpoint", endpoint(uri),
+                        "status", status == 0 ? "IO_ERROR" : String.valueOf(status),
+                        "outcome", outcome(status))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the size of a response body.
+     *
+     * @param uri   The URI that was called
+     * @param bytes The number of body bytes
+     */
+    public void recordResponseSize(URI uri, long bytes) {
+        DistributionSummary.builder("spotify.client.response.size")
+                .description("Response body size of outbound Spotify requests")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint(uri))
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Record the time spent deserializing a response body.
+     *
+     * @param uri           The URI that was called
+     * @param type          The type the body was deserialized into
+     * @param durationNanos The duration in nanoseconds
+     */
+    public void recordDeserialization(URI uri, Class<?> type, long durationNanos) {
+        Timer.builder("spotify.client.deserialization")
+                .description("JSON deserialization of Spotify responses")
+                .tags("endpoint", endpoint(uri), "type", type.getSimpleName())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reduce a URI to its endpoint template: the path with query string dropped and Spotify IDs replaced by {id}.
+     *
+     * @param uri The URI
+     * @return The endpoint template, e.g. /v1/artists/{id}
+     */
+    static String endpoint(URI uri) {
+        String path = uri.getPath();
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        return SPOTIFY_ID.matcher(path).replaceAll("/{id}");
+    }
+
+    private static String outcome(int status) {
+        if (status == 0) {
+            return "IO_ERROR";
+        }
+        if (status < 400) {
+            return "SUCCESS";
+        }
+        return status < 500 ? "CLIENT_ERROR" : "SERVER_ERROR";
+    }
+}
@@ -0,0 +1,132 @@
+package toy.jim.personal.spotify.service;
+
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.HttpClientConfig;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Catalog of the Spotify Web API endpoints the application calls, bound from spotify.endpoints.
+ * Each endpoint's URL, query parameters, timeout, cache TTL and retry budget is resolved once at startup, falling back
+ * to spotify.api-base-url and the global http-client, response-cache and rate-limit settings.
+ * Calls to URLs outside the catalog, such as the token endpoint, get the global policy.
+ */
+@Component
+public class SpotifyEndpointCatalog {
+
+    public static final String PROFILE = "profile";
+    public static final String TOP_ARTISTS = "top-artists";
+    public static final String ARTISTS = "artists";
+    public static final String TRACKS = "tracks";
+
+    private final Map<String, SpotifyEndpoint> endpoints;
+    private final SpotifyEndpoint defaultPolicy;
+
+    public SpotifyEndpointCatalog(SpotifyConfig spotifyConfig, HttpClientConfig httpClientConfig,
+                                  RateLimitConfig rateLimitConfig, ResponseCacheConfig responseCacheConfig) {
+        this.defaultPolicy = new SpotifyEndpoint("default", null, null, "", httpClientConfig.getSocketTimeoutMs(),
+                responseCacheConfig.getDefaultTtlMs(), rateLimitConfig.getMaxRetries());
+
+        Map<String, SpotifyEndpoint> resolved = new LinkedHashMap<>();
+        spotifyConfig.getEndpoints().forEach((name, endpoint) -> {
+            if (endpoint.getPath() == null || endpoint.getPath().isBlank()) {
+                throw new IllegalStateException("Spotify endpoint " + name + " has no path (spotify.endpoints." + name + ".path)");
+            }
+            String baseUrl = endpoint.getBaseUrl() != null ? endpoint.getBaseUrl() : spotifyConfig.getApiBaseUrl();
+            String url = baseUrl + endpoint.getPath();
+            resolved.put(name, new SpotifyEndpoint(name, url, URI.create(url), encode(endpoint.getQuery()),
+                    endpoint.getTimeoutMs() != null ? endpoint.getTimeoutMs() : defaultPolicy.timeoutMs(),
+                    endpoint.getCacheTtlMs() != null ? endpoint.getCacheTtlMs() : defaultPolicy.cacheTtlMs(),
+                    endpoint.getMaxRetries() != null ? endpoint.getMaxRetries() : defaultPolicy.maxRetries()));
+        });
+        for (String required : new String[]{PROFILE, TOP_ARTISTS, ARTISTS, TRACKS}) {
+            if (!resolved.containsKey(required)) {
+                throw new IllegalStateException("Spotify endpoint " + required + " is not configured (spotify.endpoints." + required + ")");
+            }
+        }
+        this.endpoints = Collections.unmodifiableMap(resolved);
+    }
+
+    /**
+     * Encode query parameters once, so requests only concatenate them.
+     *
+     * @param parameters The parameters by name, or null
+     * @return The encoded query string, or an empty string if there are none
+     */
+    private static String encode(Map<String, String> parameters) {
+        if (parameters == null) {
+            return "";
+        }
+        StringJoiner query = new StringJoiner("&");
+        parameters.forEach((name, value) -> query.add(URLEncoder.encode(name, StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(value != null ? value : "", StandardCharsets.UTF_8)));
+        return query.toString();
+    }
+
+    /**
+     * Get an endpoint by name.
+     *
+     * @param name The endpoint name, e.g. {@link #PROFILE}
+     * @return The endpoint
+     * @throws IllegalArgumentException if the catalog has no such endpoint
+     */
+    public SpotifyEndpoint get(String name) {
+        SpotifyEndpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            throw new IllegalArgumentException("Unknown Spotify endpoint " + name);
+        }
+        return endpoint;
+    }
+
+    /**
+     * Get the policy for a request URI: that of the catalog endpoint it addresses, whatever its
+     * query string, or the global policy if it addresses none.
+     *
+     * @param uri The request URI
+     * @return The endpoint policy
+     */
+    public SpotifyEndpoint policyFor(URI uri) {
+        for (SpotifyEndpoint endpoint : endpoints.values()) {
+            if (endpoint.matches(uri)) {
+                return endpoint;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    /**
+     * Get the freshness time of cached responses for an endpoint name.
+     *
+     * @param name The endpoint name
+     * @return The TTL in milliseconds, or the global default for names outside the catalog
+     */
+    public long cacheTtlMs(String name) {
+        SpotifyEndpoint endpoint = endpoints.get(name);
+        return endpoint != null ? endpoint.cacheTtlMs() : defaultPolicy.cacheTtlMs();
+    }
+
+    /**
+     * @return The global policy, applied to URLs outside the catalog
+     */
+    public SpotifyEndpoint getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    /**
+     * @return Every endpoint in the catalog
+     */
+    public Collection<SpotifyEndpoint> getAll() {
+        return endpoints.values();
+    }
+}
@@ -0,0 +1,100 @@
+package toy.jim.personal.spotify.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON readers and writers for the Spotify models, all built from the application's ObjectMapper bean,
+ * so every hot path shares one configuration (including the modules registered through json.*).
+ * An ObjectReader or ObjectWriter resolves its (de)serializer when it is created, so the readers of the
+ * models read on every request are built at startup and a request only looks its reader up by type.
+ */
+@Component
+public class SpotifyJson {
+
+    /**
+     * Types read from Spotify on the request path, whose readers are built at startup
+     */
+    static final List<Class<?>> MODELS = List.of(SpotifyTokenResponse.class, SpotifyUser.class,
+            SpotifyShowsResponse.class, SpotifyProfileView.class, SpotifyTopArtistsView.class,
+            SpotifyArtistsResponse.class, SpotifyTracksResponse.class);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public SpotifyJson(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Class<?> model : MODELS) {
+            reader(model);
+            writer(model);
+        }
+        writer(SpotifyShowsResponse.Item.class);
+    }
+
+    /**
+     * Read a value from a stream, which is left open.
+     *
+     * @param in   The JSON input
+     * @param type The type to read
+     * @return The value
+     * @throws IOException if the input cannot be read or is not valid JSON for the type
+     */
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        return reader(type).readValue(in);
+    }
+
+    /**
+     * Write a value as UTF-8 JSON.
+     *
+     * @param value The value
+     * @param type  The declared type of the value, which selects the writer
+     * @return The JSON bytes
+     * @throws IOException if the value cannot be serialized
+     */
+    public <T> byte[] write(T value, Class<T> type) throws IOException {
+        return writer(type).writeValueAsBytes(value);
+    }
+
+    /**
+     * Get the reader for a type, building and keeping it on first use.
+     *
+     * @param type The type to read
+     * @return The reader
+     */
+    public ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * Get the writer for a type, building and keeping it on first use.
+     *
+     * @param type The declared type to write
+     * @return The writer
+     */
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    /**
+     * @return The underlying mapper, for tree-model and ad-hoc use off the hot paths
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,291 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side admission control for Spotify calls.
+ * The number of concurrent requests is bounded by an adaptive limit that grows by one per limit's worth
+ * of successful calls and is cut multiplicatively when Spotify signals overload (AIMD), so under load the
+ * application slows down instead of being throttled repeatedly. As in TCP congestion control, the limit is cut
+ * at most once per window: overload reported by requests that were sent before the last cut is already
+ * accounted for by it. A 429 with Retry-After additionally pauses
+ * all new requests until the given time has passed.
+ */
+@Slf4j
+@Component
+public class SpotifyRateLimiter {
+
+    private final RateLimitConfig rateLimitConfig;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private final Counter throttled;
+    private double limit;
+    private int inFlight;
+    private long pausedUntilMs;
+    private long lastDecreaseNanos = System.nanoTime();
+    private boolean wakeupScheduled;
+
+    public SpotifyRateLimiter(RateLimitConfig rateLimitConfig, MeterRegistry meterRegistry) {
+        this.rateLimitConfig = rateLimitConfig;
+        this.limit = rateLimitConfig.getInitialLimit();
+        this.throttled = meterRegistry.counter("spotify.ratelimit.throttled");
+        Gauge.builder("spotify.ratelimit.limit", this, SpotifyRateLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("spotify.ratelimit.in-flight", this, SpotifyRateLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder("spotify.ratelimit.queued", this, SpotifyRateLimiter::getQueued).register(meterRegistry);
+    }
+
+    /**
+     * Wait for a permit to send a request, blocking the calling thread.
+     *
+     * @return true if a permit was granted, false if none became available within the acquire timeout
+     */
+    public boolean acquire() {
+        try {
+            acquireAsync().join();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Request a permit to send a request without blocking.
+     * Every granted permit must be handed back with {@link #release}.
+     *
+     * @return A future completed once a permit is granted, or completed exceptionally after the acquire timeout
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && hasCapacity(System.currentTimeMillis())) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            waiters.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        waiter.orTimeout(rateLimitConfig.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Hand back a permit and adjust the limit according to how the request went.
+     *
+     * @param sentAtNanos  The {@link System#nanoTime()} at which the request was sent
+     * @param overloaded   Whether Spotify signalled overload (429, 5xx or a timeout)
+     * @param retryAfterMs Time in milliseconds Spotify asked to wait before the next request, or 0
+     */
+    public void release(long sentAtNanos, boolean overloaded, long retryAfterMs) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                throttled.increment();
+                if (retryAfterMs > 0) {
+                    pausedUntilMs = Math.max(pausedUntilMs, System.currentTimeMillis() + retryAfterMs);
+                }
+                if (sentAtNanos - lastDecreaseNanos >= 0) {
+                    limit = Math.max(rateLimitConfig.getMinLimit(), limit * rateLimitConfig.getBackoffRatio());
+                    lastDecreaseNanos = System.nanoTime();
+                    log.warn("Spotify signalled overload, concurrency limit lowered to {}", (int) limit);
+                }
+            } else {
+                limit = Math.min(rateLimitConfig.getMaxLimit(), limit + 1.0 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * Compute how long to wait before retrying a request that failed with a retryable status.
+     * Retry-After is honoured when present; otherwise the delay is exponential in the attempt with full jitter,
+     * so clients that were throttled together do not retry together.
+     *
+     * @param attempt    The zero-based number of the attempt that failed
+     * @param retryAfter The Retry-After header value, or null
+     * @return The delay in milliseconds, or -1 if the request should not be retried
+     */
+    public long retryDelayMs(int attempt, String retryAfter) {
+        return retryDelayMs(attempt, rateLimitConfig.getMaxRetries(), retryAfter);
+    }
+
+    /**
+     * Variant of {@link #retryDelayMs(int, String)} with an endpoint's own retry budget.
+     *
+     * @param attempt    The zero-based number of the attempt that failed
+     * @param maxRetries The maximum number of retries for the request
+     * @param retryAfter The Retry-After header value, or null
+     * @return The delay in milliseconds, or -1 if the request should not be retried
+     */
+    public long retryDelayMs(int attempt, int maxRetries, String retryAfter) {
+        if (attempt >= maxRetries) {
+            return -1;
+        }
+        long retryAfterMs = parseRetryAfterMs(retryAfter);
+        if (retryAfterMs > rateLimitConfig.getMaxRetryAfterMs()) {
+            return -1;
+        }
+        if (retryAfterMs > 0) {
+            return retryAfterMs + ThreadLocalRandom.current().nextLong(rateLimitConfig.getBaseBackoffMs() + 1);
+        }
+        long ceiling = Math.min(rateLimitConfig.getMaxBackoffMs(), rateLimitConfig.getBaseBackoffMs() << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Whether a status code signals that Spotify is overloaded and the request may be retried.
+     *
+     * @param status The HTTP status code
+     * @return true for 429 and 5xx
+     */
+    public static boolean isRetryable(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * Parse a Retry-After header given either as delay seconds or as an HTTP date.
+     *
+     * @param retryAfter The header value, or null
+     * @return The delay in milliseconds, or 0 if absent or unparseable
+     */
+    public static long parseRetryAfterMs(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Get the current concurrency limit.
+     *
+     * @return The limit
+     */
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests currently holding a permit.
+     *
+     * @return The number of requests
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests waiting for a permit.
+     *
+     * @return The number of requests
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean hasCapacity(long nowMs) {
+        return inFlight < (int) limit && nowMs >= pausedUntilMs;
+    }
+
+    /**
+     * Grant permits to waiting requests while capacity allows. Waiters are completed outside the lock
+     * so their continuations never run while it is held.
+     */
+    private void drain() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        long wakeupInMs = 0;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            while (!waiters.isEmpty() && hasCapacity(now)) {
+                CompletableFuture<Void> waiter = waiters.poll();
+                if (!waiter.isDone()) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+            if (!waiters.isEmpty() && now < pausedUntilMs && !wakeupScheduled) {
+                wakeupScheduled = true;
+                wakeupInMs = pausedUntilMs - now;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (wakeupInMs > 0) {
+            CompletableFuture.runAsync(this::wakeup, CompletableFuture.delayedExecutor(wakeupInMs, TimeUnit.MILLISECONDS));
+        }
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                // Timed out between being polled and being granted; return the permit unused
+                returnUnused();
+            }
+        }
+    }
+
+    private void wakeup() {
+        lock.lock();
+        try {
+            wakeupScheduled = false;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private void returnUnused() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+}
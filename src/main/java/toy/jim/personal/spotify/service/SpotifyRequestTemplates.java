@@ -0,0 +1,170 @@
+package toy.jim.personal.spotify.service;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHeader;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import toy.jim.personal.spotify.config.AuthConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request templates for Spotify calls, built once from configuration at startup.
+ * Everything that does not change between requests is precomputed here: the Basic credential header,
+ * the token endpoint URI, the client credentials body, the parsed URIs of the catalog endpoints,
+ * each endpoint's timeouts, and the authorization URL up to its state parameter. Building a request
+ * then only allocates the request object and its per-call values.
+ */
+@Component
+public class SpotifyRequestTemplates {
+
+    // Without a charset parameter, as the token endpoint has always been sent
+    private static final ContentType FORM = ContentType.create("application/x-www-form-urlencoded");
+
+    private final Header clientAuthorization;
+    private final URI tokenUri;
+    private final ByteArrayEntity clientCredentialsBody;
+    private final String encodedRedirectUri;
+    private final String authorizationUrlPrefix;
+    private final String topArtistsFirstPageUrl;
+    private final SpotifyEndpointCatalog endpoints;
+    private final Map<String, URI> fixedUris = new HashMap<>();
+    private final Map<String, Duration> asyncTimeouts = new HashMap<>();
+
+    public SpotifyRequestTemplates(AuthConfig authConfig, SpotifyConfig spotifyConfig, SpotifyEndpointCatalog endpoints) {
+        this.clientAuthorization = new BasicHeader("Authorization",
+                basicAuthorization(authConfig.getClientId(), authConfig.getClientSecret()));
+        this.tokenUri = URI.create(authConfig.getTokenUrl());
+        this.clientCredentialsBody = new ByteArrayEntity("grant_type=client_credentials".getBytes(StandardCharsets.US_ASCII), FORM);
+        this.encodedRedirectUri = authConfig.getRedirectUri() != null
+                ? URLEncoder.encode(authConfig.getRedirectUri(), StandardCharsets.UTF_8) : "";
+        // The state parameter is appended last, so everything before it can be built once
+        this.authorizationUrlPrefix = UriComponentsBuilder.fromUriString(authConfig.getAuthorizationUrl())
+                .queryParam("client_id", authConfig.getClientId())
+                .queryParam("response_type", "code")
+                .queryParam("redirect_uri", authConfig.getRedirectUri())
+                .queryParam("scope", authConfig.getScopes())
+                .build()
+                .toUriString() + "&state=";
+        this.endpoints = endpoints;
+        this.topArtistsFirstPageUrl = endpoints.get(SpotifyEndpointCatalog.TOP_ARTISTS).requestUrl("limit=" + spotifyConfig.getPageSize());
+        fixedUris.put(topArtistsFirstPageUrl, URI.create(topArtistsFirstPageUrl));
+        for (SpotifyEndpoint endpoint : endpoints.getAll()) {
+            fixedUris.put(endpoint.url(), endpoint.uri());
+            fixedUris.computeIfAbsent(endpoint.requestUrl(null), URI::create);
+            asyncTimeouts.put(endpoint.name(), Duration.ofMillis(endpoint.timeoutMs()));
+        }
+        SpotifyEndpoint defaultPolicy = endpoints.getDefaultPolicy();
+        asyncTimeouts.put(defaultPolicy.name(), Duration.ofMillis(defaultPolicy.timeoutMs()));
+    }
+
+    /**
+     * Build a client credentials token request. The body is shared between requests, as it never changes.
+     *
+     * @return The token request
+     */
+    public HttpPost clientCredentialsRequest() {
+        HttpPost request = new HttpPost(tokenUri);
+        request.setHeader(clientAuthorization);
+        request.setEntity(clientCredentialsBody);
+        return request;
+    }
+
+    /**
+     * Build a token request exchanging an authorization code.
+     *
+     * @param code The authorization code received from Spotify
+     * @return The token request
+     */
+    public HttpPost authorizationCodeRequest(String code) {
+        return tokenRequest("grant_type=authorization_code&code=" + URLEncoder.encode(code, StandardCharsets.UTF_8)
+                + "&redirect_uri=" + encodedRedirectUri);
+    }
+
+    /**
+     * Build a token request exchanging a refresh token.
+     *
+     * @param refreshToken The refresh token
+     * @return The token request
+     */
+    public HttpPost refreshTokenRequest(String refreshToken) {
+        return tokenRequest("grant_type=refresh_token&refresh_token=" + URLEncoder.encode(refreshToken, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Start an authenticated GET for the non-blocking client, with the timeout of the endpoint it addresses.
+     * Unlike the blocking client, the JDK client does not negotiate compression itself, so gzip is asked for
+     * here and the caller inflates responses that carry Content-Encoding: gzip.
+     *
+     * @param url         The URL to call
+     * @param accessToken The OAuth access token
+     * @return The request builder, to which further headers can be added
+     */
+    public HttpRequest.Builder asyncBearerGet(String url, String accessToken) {
+        URI uri = uri(url);
+        return HttpRequest.newBuilder(uri)
+                .timeout(asyncTimeouts.get(endpoints.policyFor(uri).name()))
+                .header("Authorization", "Bearer " + accessToken)
+                .header("Accept-Encoding", "gzip")
+                .GET();
+    }
+
+    /**
+     * Build the Spotify authorization URL for the authorization code flow.
+     *
+     * @param state The state parameter bound to the user's session
+     * @return The authorization URL
+     */
+    public String authorizationUrl(String state) {
+        return authorizationUrlPrefix + state;
+    }
+
+    /**
+     * Get the URI for a URL, reusing the parsed URI for the catalog endpoints.
+     *
+     * @param url The URL
+     * @return The URI
+     */
+    public URI uri(String url) {
+        URI uri = fixedUris.get(url);
+        return uri != null ? uri : URI.create(url);
+    }
+
+    /**
+     * @return The URL of the first page of the current user's top artists at the configured page size
+     */
+    public String getTopArtistsFirstPageUrl() {
+        return topArtistsFirstPageUrl;
+    }
+
+    private HttpPost tokenRequest(String body) {
+        HttpPost request = new HttpPost(tokenUri);
+        request.setHeader(clientAuthorization);
+        request.setEntity(new ByteArrayEntity(body.getBytes(StandardCharsets.US_ASCII), FORM));
+        return request;
+    }
+
+    /**
+     * Build the Basic Authorization header value for the client credentials.
+     *
+     * @param clientId     The client ID
+     * @param clientSecret The client secret
+     * @return The header value, e.g. "Basic aWQ6c2VjcmV0"
+     */
+    static String basicAuthorization(String clientId, String clientSecret) {
+        String auth = clientId + ":" + clientSecret;
+        return "Basic " + Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,249 @@
+package toy.jim.personal.spotify.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.model.ConditionalResponse;
+import toy.jim.personal.spotify.model.VersionedResponse;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded per-user cache for Spotify API responses.
+ * Fresh entries are served without contacting Spotify. Once an entry is older than its endpoint's TTL
+ * it is revalidated with If-None-Match, so an unchanged resource costs a 304 with no body to transfer
+ * or deserialize. If Spotify cannot serve the request (no answer, for example while its circuit is open,
+ * or a 5xx), a stale entry is served rather than failing the request; a 4xx is passed on, as it says
+ * something about the user's access to the resource.
+ * When the {@link SharedStateStore} is shared between replicas, entries are also written through to it
+ * as JSON, and a replica that has no entry of its own reads it from there; the in-process cache stays
+ * in front so fresh hits never leave the JVM.
+ */
+@Slf4j
+@Component
+@RegisterReflectionForBinding(SpotifyResponseCache.Entry.class)
+public class SpotifyResponseCache {
+
+    static final String RESPONSES = "response";
+
+    private final SpotifyAsyncClient spotifyAsyncClient;
+    private final SpotifyEndpointCatalog endpoints;
+    private final SharedStateStore sharedStateStore;
+    private final long retentionMs;
+    private final SpotifyJson spotifyJson;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter entryWriter;
+    private final Cache<String, Entry> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter revalidations;
+    private final Counter staleServed;
+    private final Counter evictions;
+
+    public SpotifyResponseCache(SpotifyAsyncClient spotifyAsyncClient, ResponseCacheConfig responseCacheConfig,
+                                SpotifyEndpointCatalog endpoints, SharedStateStore sharedStateStore, SpotifyJson spotifyJson, MeterRegistry meterRegistry) {
+        this.spotifyAsyncClient = spotifyAsyncClient;
+        this.endpoints = endpoints;
+        this.sharedStateStore = sharedStateStore;
+        this.retentionMs = responseCacheConfig.getRetentionMs();
+        this.spotifyJson = spotifyJson;
+        this.objectMapper = spotifyJson.getObjectMapper();
+        this.entryWriter = spotifyJson.writer(Entry.class);
+        this.hits = meterRegistry.counter("spotify.response.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("spotify.response.cache.requests", "result", "miss");
+        this.revalidations = meterRegistry.counter("spotify.response.cache.requests", "result", "revalidated");
+        this.staleServed = meterRegistry.counter("spotify.response.cache.requests", "result", "stale");
+        this.evictions = meterRegistry.counter("spotify.response.cache.evictions");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(responseCacheConfig.getMaxEntries())
+                .expireAfterWrite(responseCacheConfig.getRetentionMs(), TimeUnit.MILLISECONDS)
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        Gauge.builder("spotify.response.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Get a Spotify resource for a user together with its version, so it can be handed to clients as validators.
+     * Fresh entries complete immediately; otherwise the resource is revalidated on the non-blocking client. The version is computed once each time the content changes, not per call.
+     *
+     * @param sessionId The session of the user
+     * @param endpoint  The catalog endpoint name used to look up the TTL
+     * @param url       The URL to call
+     * @param type      The type to deserialize the body into
+     * @return A future completed with the versioned resource, or with null if it could not be fetched
+     */
+    public <T> CompletableFuture<VersionedResponse<T>> getVersionedAsync(String sessionId, String endpoint,
+                                                                         String url, Class<T> type) {
+        String key = key(sessionId, url, type);
+        Entry cached = lookup(key, type);
+        if (cached != null && System.currentTimeMillis() < cached.freshUntilMs) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.versioned());
+        }
+
+        return spotifyAsyncClient.getConditional(sessionId, url, type, cached != null ? cached.etag : null)
+                .thenApply(response -> {
+                    Entry entry = store(key, endpoint, cached, response);
+                    return entry != null ? entry.versioned() : null;
+                });
+    }
+
+    /**
+     * Record the outcome of a (conditional) fetch in the cache.
+     *
+     * @param key      The cache key
+     * @param endpoint The catalog endpoint name used to look up the TTL
+     * @param cached   The entry that was revalidated, or null
+     * @param response The upstream response
+     * @return The entry to hand to the caller, which is the stale cached one if Spotify was unavailable, or null
+     */
+    private <T> Entry store(String key, String endpoint, Entry cached, ConditionalResponse<T> response) {
+        if (response.isFailed()) {
+            if (cached != null && response.isUnavailable()) {
+                staleServed.increment();
+                log.warn("Spotify unavailable for {}, serving stale response", endpoint);
+                return cached;
+            }
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        long freshUntil = now + endpoints.cacheTtlMs(endpoint);
+        if (response.notModified() && cached != null) {
+            revalidations.increment();
+            Entry entry = new Entry(cached.body, response.etag(), freshUntil, cached.version, cached.modifiedAtMs);
+            put(key, entry);
+            return entry;
+        }
+
+        misses.increment();
+        if (response.body() == null) {
+            return null;
+        }
+        String version = version(response.body());
+        // A new upstream version whose content is unchanged keeps its modification time
+        long modifiedAt = cached != null && version.equals(cached.version) ? cached.modifiedAtMs : now;
+        Entry entry = new Entry(response.body(), response.etag(), freshUntil, version, modifiedAt);
+        put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Compute the version of a body from its JSON form: the first 128 bits of its SHA-256, Base64url encoded.
+     *
+     * @param body The body
+     * @return The version
+     */
+    private String version(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(spotifyJson.writer(body.getClass()).writeValueAsBytes(body));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot compute the version of a " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Build the cache key of a resource. The type is part of it because one URL may be read into
+     * different projections, e.g. the full profile and the slim view of the dashboard.
+     */
+    private static String key(String sessionId, String url, Class<?> type) {
+        return sessionId + " " + url + " " + type.getSimpleName();
+    }
+
+    /**
+     * Drop every cached response of a session.
+     *
+     * @param sessionId The session ID
+     */
+    public void invalidate(String sessionId) {
+        String prefix = sessionId + " ";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        if (sharedStateStore.isShared()) {
+            sharedStateStore.removeByPrefix(RESPONSES, prefix);
+        }
+    }
+
+    /**
+     * Get the cached entry for a key from this JVM, or else from the shared store if it is shared.
+     *
+     * @param key  The cache key
+     * @param type The type of the cached body
+     * @return The entry or null if neither has one
+     */
+    private Entry lookup(String key, Class<?> type) {
+        Entry cached = cache.getIfPresent(key);
+        if (cached != null || !sharedStateStore.isShared()) {
+            return cached;
+        }
+        SharedStateStore.Entry shared = sharedStateStore.get(RESPONSES, key);
+        if (shared == null) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(shared.value());
+            JsonNode etag = node.get("etag");
+            Object body = objectMapper.treeToValue(node.get("body"), type);
+            // Entries written before versions were kept get theirs computed here
+            cached = new Entry(body, etag.isNull() ? null : etag.asText(), node.get("freshUntilMs").asLong(),
+                    node.hasNonNull("version") ? node.get("version").asText() : version(body),
+                    node.path("modifiedAtMs").asLong(System.currentTimeMillis()));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable shared cache entry: {}", e.getMessage());
+            return null;
+        }
+        cache.put(key, cached);
+        return cached;
+    }
+
+    /**
+     * Cache an entry in this JVM and, if the shared store is shared, write it through to other replicas.
+     *
+     * @param key   The cache key
+     * @param entry The entry
+     */
+    private void put(String key, Entry entry) {
+        cache.put(key, entry);
+        if (sharedStateStore.isShared()) {
+            try {
+                sharedStateStore.put(RESPONSES, key, entryWriter.writeValueAsString(entry), retentionMs);
+            } catch (JsonProcessingException e) {
+                log.warn("Could not share cache entry: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cached body with its upstream entity tag, the time until which it may be served without revalidation,
+     * and the version and modification time of its content handed to clients.
+     * Written to a shared store as JSON, so a native image keeps it reflectively accessible.
+     */
+    record Entry(Object body, String etag, long freshUntilMs, String version, long modifiedAtMs) {
+
+        @SuppressWarnings("unchecked")
+        <T> VersionedResponse<T> versioned() {
+            return new VersionedResponse<>((T) body, version, modifiedAtMs);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.WarmUpConfig;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Warm-up run once the application has started and before it reports itself ready to accept traffic
+ * (readiness follows the ApplicationReadyEvent listeners), so the first users do not pay for what the JVM,
+ * Jackson and the HTTP clients otherwise do lazily on the first requests.
+ * Every Spotify model is written and read back through SpotifyJson a number of times, loading and compiling
+ * the (de)serializers, while the client credentials token is fetched and a connection is opened to each
+ * Spotify host on both the pooled and the non-blocking client; a TLS session is then cached for resumption.
+ * A failed warm-up is logged and does not stop the application.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupWarmUp {
+
+    /**
+     * The models read in place of another one, with the model whose payload they are read from
+     */
+    private static final Map<Class<?>, Class<?>> VIEWS = Map.of(
+            SpotifyProfileView.class, SpotifyUser.class,
+            SpotifyTopArtistsView.class, SpotifyShowsResponse.class);
+
+    private final WarmUpConfig warmUpConfig;
+    private final SpotifyJson spotifyJson;
+    private final OAuthService oAuthService;
+    private final SpotifyEndpointCatalog endpoints;
+    private final CloseableHttpClient spotifyHttpClient;
+    private final HttpClient spotifyAsyncHttpClient;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Warm up, unless disabled with warm-up.enabled=false.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUpConfig.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Integer> connections = warmUpConfig.isConnections()
+                ? CompletableFuture.supplyAsync(this::openConnections)
+                : CompletableFuture.completedFuture(0);
+
+        int roundTrips = primeJson(warmUpConfig.getJsonIterations());
+        long jsonNanos = System.nanoTime() - start;
+        int opened = connections
+                .completeOnTimeout(-1, warmUpConfig.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Warm-up of the Spotify connections failed", e);
+                    return 0;
+                })
+                .join();
+
+        long elapsedNanos = System.nanoTime() - start;
+        meterRegistry.timer("spotify.warmup").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (opened < 0) {
+            log.warn("Warm-up did not open the Spotify connections within {} ms", warmUpConfig.getTimeoutMs());
+        }
+        log.info("Warm-up took {} ms: {} JSON round trips in {} ms, {} Spotify connections",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), roundTrips, TimeUnit.NANOSECONDS.toMillis(jsonNanos),
+                Math.max(opened, 0));
+    }
+
+    /**
+     * Write every Spotify model and read it back, and read the views from the payload of their full model.
+     *
+     * @param iterations The number of times each model is written and read
+     * @return The number of models read, or fewer than expected if one could not be
+     */
+    int primeJson(int iterations) {
+        Map<Class<?>, Object> samples = samples();
+        int roundTrips = 0;
+        try {
+            for (int i = 0; i < iterations; i++) {
+                Map<Class<?>, byte[]> payloads = new LinkedHashMap<>();
+                for (Map.Entry<Class<?>, Object> sample : samples.entrySet()) {
+                    payloads.put(sample.getKey(), spotifyJson.writer(sample.getKey()).writeValueAsBytes(sample.getValue()));
+                }
+                for (Class<?> model : SpotifyJson.MODELS) {
+                    spotifyJson.reader(model).readValue(payloads.get(VIEWS.getOrDefault(model, model)));
+                    roundTrips++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Warm-up of the Spotify models failed", e);
+        }
+        return roundTrips;
+    }
+
+    /**
+     * Fetch the client credentials token, which opens a pooled connection to the accounts host and caches
+     * the token for catalog lookups, and send a HEAD request to each Web API host on both clients.
+     * Any answer, whatever its status, leaves an open connection behind.
+     *
+     * @return The number of connections opened
+     */
+    int openConnections() {
+        int opened = oAuthService.getAccessToken() != null ? 1 : 0;
+        for (URI origin : origins()) {
+            try (CloseableHttpResponse response = spotifyHttpClient.execute(new HttpHead(origin))) {
+                EntityUtils.consume(response.getEntity());
+                opened++;
+            } catch (IOException e) {
+                log.warn("Warm-up could not connect to {}: {}", origin, e.toString());
+            }
+            try {
+                spotifyAsyncHttpClient.send(HttpRequest.newBuilder(origin)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .timeout(Duration.ofMillis(warmUpConfig.getTimeoutMs()))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+                opened++;
+            } catch (IOException e) {
+                log.warn("Warm-up could not connect to {}: {}", origin, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * @return The distinct scheme, host and port of the endpoints in the catalog
+     */
+    private Set<URI> origins() {
+        Set<URI> origins = new LinkedHashSet<>();
+        for (SpotifyEndpoint endpoint : endpoints.getAll()) {
+            origins.add(URI.create(endpoint.uri().getScheme() + "://" + endpoint.uri().getRawAuthority() + "/"));
+        }
+        return origins;
+    }
+
+    /**
+     * Build a representative value of every full model, with every nested type populated.
+     *
+     * @return The samples by model
+     */
+    static Map<Class<?>, Object> samples() {
+        SpotifyShowsResponse.ExternalUrls urls = new SpotifyShowsResponse.ExternalUrls("https://open.spotify.com/");
+        List<SpotifyShowsResponse.Image> images = List.of(
+                new SpotifyShowsResponse.Image("https://i.scdn.co/image/640", 640, 640),
+                new SpotifyShowsResponse.Image("https://i.scdn.co/image/160", 160, 160));
+        List<SpotifyShowsResponse.Item> artists = IntStream.range(0, 20)
+                .mapToObj(i -> new SpotifyShowsResponse.Item(urls, new SpotifyShowsResponse.Followers(null, 1000 + i),
+                        List.of("indie", "pop"), "https://api.spotify.com/v1/artists/warmup" + i, "warmup" + i, images,
+                        "Artist " + i, 50 + i, "artist", "spotify:artist:warmup" + i))
+                .toList();
+        List<SpotifyTracksResponse.ArtistRef> artistRefs = List.of(new SpotifyTracksResponse.ArtistRef(
+                urls, "https://api.spotify.com/v1/artists/warmup0", "warmup0", "Artist 0", "artist", "spotify:artist:warmup0"));
+        SpotifyTracksResponse.Album album = new SpotifyTracksResponse.Album("album", artistRefs, urls,
+                "https://api.spotify.com/v1/albums/warmup", "warmup", images, "Album", "2024-01-01", 10, "album",
+                "spotify:album:warmup");
+        List<SpotifyTracksResponse.Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tracks.add(new SpotifyTracksResponse.Track(album, artistRefs, 1, 200_000 + i, false, urls,
+                    "https://api.spotify.com/v1/tracks/warmup" + i, "warmup" + i, "Track " + i, 40 + i, null, i + 1,
+                    "track", "spotify:track:warmup" + i));
+        }
+
+        Map<Class<?>, Object> samples = new LinkedHashMap<>();
+        samples.put(SpotifyTokenResponse.class, new SpotifyTokenResponse("warm-up-access-token", "Bearer",
+                "user-read-private user-read-email user-top-read", 3600L, "warm-up-refresh-token", null, null));
+        samples.put(SpotifyUser.class, new SpotifyUser("Warm Up", new SpotifyUser.ExternalUrls("https://open.spotify.com/user/warmup"),
+                new SpotifyUser.Followers(null, 10), "https://api.spotify.com/v1/users/warmup", "warmup",
+                List.of(new SpotifyUser.Image("https://i.scdn.co/image/warmup", 300, 300)), "user", "spotify:user:warmup",
+                "SE", "warmup@example.com", new SpotifyUser.ExplicitContent(false, false), "premium"));
+        samples.put(SpotifyShowsResponse.class, new SpotifyShowsResponse("https://api.spotify.com/v1/me/top/artists", 20,
+                "https://api.spotify.com/v1/me/top/artists?offset=20&limit=20", 0, null, 40, artists));
+        samples.put(SpotifyArtistsResponse.class, new SpotifyArtistsResponse(artists));
+        samples.put(SpotifyTracksResponse.class, new SpotifyTracksResponse(tracks));
+        samples.put(SpotifyShowsResponse.Item.class, artists.get(0));
+        return samples;
+    }
+}
@@ -0,0 +1,210 @@
+package toy.jim.personal.spotify.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import toy.jim.personal.spotify.config.TokenStoreConfig;
+import toy.jim.personal.spotify.model.SpotifyToken;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Store for per-session Spotify tokens and pending OAuth state parameters, kept in the
+ * {@link SharedStateStore} so that any replica can serve any session.
+ * Sessions expire after being idle for the session TTL; a read extends the expiry at most once
+ * per touch interval, so a shared store is not written on every request. Idle sessions and stale
+ * state parameters are evicted by a scheduled sweep so storage stays bounded by the number of active sessions.
+ * Created eagerly even with lazy initialization, so the sweep starts with the application.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class TokenStore {
+
+    static final String TOKENS = "token";
+    static final String STATES = "oauth-state";
+    static final String REFRESH_LOCKS = "refresh-lock";
+
+    private final TokenStoreConfig tokenStoreConfig;
+    private final SharedStateStore sharedStateStore;
+
+    // Identifies this replica as the holder of refresh leases
+    private final String replicaId = UUID.randomUUID().toString();
+
+    /**
+     * Get the token for a session.
+     *
+     * @param sessionId The session ID
+     * @return The token or null if the session has no token or it has been evicted
+     */
+    public SpotifyToken get(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        SharedStateStore.Entry entry = sharedStateStore.get(TOKENS, sessionId);
+        if (entry == null) {
+            return null;
+        }
+        long sessionTtlMs = tokenStoreConfig.getSessionTtlMs();
+        long idleMs = sessionTtlMs - (entry.expiresAtMs() - System.currentTimeMillis());
+        if (idleMs >= tokenStoreConfig.getTouchIntervalMs()) {
+            sharedStateStore.touch(TOKENS, sessionId, sessionTtlMs);
+        }
+        return decode(entry.value());
+    }
+
+    /**
+     * Get the token for a session without counting it as user activity.
+     * Used by background work so that it does not keep idle sessions alive.
+     *
+     * @param sessionId The session ID
+     * @return The token or null if the session has no token
+     */
+    public SpotifyToken peek(String sessionId) {
+        SharedStateStore.Entry entry = sharedStateStore.get(TOKENS, sessionId);
+        return entry != null ? decode(entry.value()) : null;
+    }
+
+    /**
+     * Store or replace the token for a session.
+     *
+     * @param sessionId The session ID
+     * @param token     The token to store
+     */
+    public void put(String sessionId, SpotifyToken token) {
+        sharedStateStore.put(TOKENS, sessionId, encode(token), tokenStoreConfig.getSessionTtlMs());
+    }
+
+    /**
+     * Replace the token of an existing session without counting it as user activity.
+     * Does nothing if the session has been evicted in the meantime.
+     *
+     * @param sessionId The session ID
+     * @param token     The new token
+     */
+    public void update(String sessionId, SpotifyToken token) {
+        sharedStateStore.replace(TOKENS, sessionId, encode(token));
+    }
+
+    /**
+     * Remove the token for a session.
+     *
+     * @param sessionId The session ID
+     */
+    public void remove(String sessionId) {
+        sharedStateStore.remove(TOKENS, sessionId);
+    }
+
+    /**
+     * Get the IDs of all sessions currently holding a token.
+     *
+     * @return The session IDs
+     */
+    public Iterable<String> sessionIds() {
+        return sharedStateStore.keys(TOKENS);
+    }
+
+    /**
+     * Take the lease to refresh the token of a session. While it is held, no other replica refreshes
+     * that session, so a refresh token is redeemed once and a rotated one is not overwritten by a spent one.
+     * The lease expires by itself if this replica dies before releasing it.
+     *
+     * @param sessionId The session ID
+     * @param leaseMs   Time in milliseconds until the lease expires
+     * @return True if this replica now holds the lease
+     */
+    public boolean tryLockRefresh(String sessionId, long leaseMs) {
+        return sharedStateStore.putIfAbsent(REFRESH_LOCKS, sessionId, replicaId, leaseMs);
+    }
+
+    /**
+     * Check whether any replica holds the lease to refresh the token of a session.
+     *
+     * @param sessionId The session ID
+     * @return True if the lease is held
+     */
+    public boolean isRefreshLocked(String sessionId) {
+        return sharedStateStore.get(REFRESH_LOCKS, sessionId) != null;
+    }
+
+    /**
+     * Release the lease to refresh the token of a session, if this replica still holds it. The check and
+     * the removal are one step, so a lease that expired and was taken over by another replica is left alone.
+     *
+     * @param sessionId The session ID
+     */
+    public void unlockRefresh(String sessionId) {
+        sharedStateStore.remove(REFRESH_LOCKS, sessionId, replicaId);
+    }
+
+    /**
+     * Remember the state parameter issued to a session for the authorization code flow.
+     *
+     * @param sessionId The session ID
+     * @param state     The state parameter
+     */
+    public void putState(String sessionId, String state) {
+        sharedStateStore.put(STATES, sessionId, state, tokenStoreConfig.getStateTtlMs());
+    }
+
+    /**
+     * Validate and consume the state parameter for a session. A state can only be used once,
+     * even if the callback is replayed against another replica.
+     *
+     * @param sessionId The session ID
+     * @param state     The state parameter from the callback
+     * @return True if the state matches the one issued to the session and has not expired
+     */
+    public boolean consumeState(String sessionId, String state) {
+        if (sessionId == null || state == null) {
+            return false;
+        }
+        return state.equals(sharedStateStore.take(STATES, sessionId));
+    }
+
+    /**
+     * Get the number of sessions currently holding a token.
+     *
+     * @return The number of sessions
+     */
+    public int size() {
+        return sharedStateStore.size(TOKENS);
+    }
+
+    /**
+     * Evict idle sessions, expired state parameters and any other expired shared state.
+     */
+    @Scheduled(fixedDelayString = "${token-store.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        int evicted = sharedStateStore.evictExpired();
+        if (evicted > 0) {
+            log.debug("Evicted {} expired entries from shared state", evicted);
+        }
+    }
+
+    /**
+     * Encode a token as its access token, refresh token and expiry time separated by tabs,
+     * none of which can contain a tab. Cheaper to read back on every request than JSON.
+     */
+    static String encode(SpotifyToken token) {
+        return (token.accessToken() != null ? token.accessToken() : "")
+                + '\t' + (token.refreshToken() != null ? token.refreshToken() : "")
+                + '\t' + (token.expiresAt() != null ? token.expiresAt() : "");
+    }
+
+    static SpotifyToken decode(String value) {
+        int first = value.indexOf('\t');
+        int second = value.indexOf('\t', first + 1);
+        String accessToken = value.substring(0, first);
+        String refreshToken = value.substring(first + 1, second);
+        String expiresAt = value.substring(second + 1);
+        return new SpotifyToken(
+                accessToken.isEmpty() ? null : accessToken,
+                refreshToken.isEmpty() ? null : refreshToken,
+                expiresAt.isEmpty() ? null : Instant.parse(expiresAt));
+    }
+}
@@ -4,28 +4,113 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
 import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
 import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.VersionedResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static toy.jim.personal.spotify.service.SpotifyEndpointCatalog.PROFILE;
+import static toy.jim.personal.spotify.service.SpotifyEndpointCatalog.TOP_ARTISTS;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServer {
 
-    private final OAuthService oAuthService;
+    private final SpotifyResponseCache responseCache;
     private final SpotifyConfig spotifyConfig;
+    private final SpotifyAsyncClient spotifyAsyncClient;
+    private final SpotifyRequestTemplates requestTemplates;
+    private final SpotifyEndpointCatalog endpoints;
+
+    /**
+     * Get a Spotify user profile without blocking the calling thread.
+     *
+     * @param sessionId The session of the user
+     * @return A future completed with the versioned Spotify user profile, or with null if it could not be fetched
+     */
+    public CompletableFuture<VersionedResponse<SpotifyUser>> getUserAsync(String sessionId) {
+        return responseCache.getVersionedAsync(sessionId, PROFILE, endpoints.get(PROFILE).requestUrl(null),
+                SpotifyUser.class);
+    }
+
+    /**
+     * Get the user's top artists without blocking the calling thread.
+     *
+     * @param sessionId The session of the user
+     * @return A future completed with the versioned top artists, or with null if they could not be fetched
+     */
+    public CompletableFuture<VersionedResponse<SpotifyShowsResponse>> getTracksAsync(String sessionId) {
+        return responseCache.getVersionedAsync(sessionId, TOP_ARTISTS, endpoints.get(TOP_ARTISTS).requestUrl(null),
+                SpotifyShowsResponse.class);
+    }
+
+    /**
+     * Get the user's profile and top artists in one call, as the slim views the web UI needs.
+     * Both upstream requests are started at once and share a single deadline, so the latency is that
+     * of the slower call rather than the sum of both. A part that misses the deadline or fails is left null.
+     * The version of a complete dashboard combines those of its parts; a partial one has none, so that
+     * clients do not keep it.
+     *
+     * @param sessionId The session of the user
+     * @return A future completed with the versioned dashboard, or with null if neither part could be fetched
+     */
+    public CompletableFuture<VersionedResponse<SpotifyDashboard>> getDashboardAsync(String sessionId) {
+        long deadlineMs = spotifyConfig.getDashboardDeadlineMs();
+        CompletableFuture<VersionedResponse<SpotifyProfileView>> user = withDeadline(responseCache.getVersionedAsync(
+                sessionId, PROFILE, endpoints.get(PROFILE).requestUrl(null), SpotifyProfileView.class), deadlineMs, PROFILE);
+        CompletableFuture<VersionedResponse<SpotifyTopArtistsView>> tracks = withDeadline(responseCache.getVersionedAsync(
+                sessionId, TOP_ARTISTS, endpoints.get(TOP_ARTISTS).requestUrl(null), SpotifyTopArtistsView.class),
+                deadlineMs, TOP_ARTISTS);
+        return user.thenCombine(tracks, (profile, topArtists) -> {
+            if (profile == null && topArtists == null) {
+                return null;
+            }
+            if (profile == null || topArtists == null) {
+                return new VersionedResponse<>(new SpotifyDashboard(profile != null ? profile.body() : null,
+                        topArtists != null ? topArtists.body() : null), null, 0);
+            }
+            return new VersionedResponse<>(new SpotifyDashboard(profile.body(), topArtists.body()),
+                    profile.etag() + "." + topArtists.etag(),
+                    Math.max(profile.lastModifiedMs(), topArtists.lastModifiedMs()));
+        });
+    }
 
     /**
-     * Get a Spotify user profile.
+     * Bound a call by a deadline without affecting other callers sharing the same in-flight future.
      *
-     * @return The Spotify user profile as a SpotifyUser object
+     * @param call       The call to bound
+     * @param deadlineMs The deadline in milliseconds
+     * @param endpoint   The endpoint name, used for logging
+     * @return A future completed with the result, or with null on timeout or failure
      */
-    public SpotifyUser getUser() {
-        return oAuthService.getSpotifyUser("https://api.spotify.com/v1/me");
+    private static <T> CompletableFuture<T> withDeadline(CompletableFuture<T> call, long deadlineMs, String endpoint) {
+        return call.copy()
+                .orTimeout(deadlineMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Dashboard part {} not available within {} ms: {}", endpoint, deadlineMs, e.toString());
+                    return null;
+                });
     }
 
-    public SpotifyShowsResponse getTracks(){
-        return oAuthService.getSpotifyTracks("https://api.spotify.com/v1/me/top/artists");
+    /**
+     * Get all pages of the user's top artists, following Spotify's next links lazily.
+     * Pages bypass the response cache so a long result set is never held in memory as a whole.
+     *
+     * @param sessionId The session of the user
+     * @return A future completed once the first page has arrived with an iterator over the pages, prefetching
+     * the next page while the current one is consumed, or with null if the first page could not be fetched
+     */
+    public CompletableFuture<PrefetchingPageIterator> getTopArtistPages(String sessionId) {
+        PrefetchingPageIterator pages = new PrefetchingPageIterator(
+                requestTemplates.getTopArtistsFirstPageUrl(),
+                url -> spotifyAsyncClient.getSpotifyTracks(sessionId, url));
+        return pages.firstPageAvailable().thenApply(available -> available ? pages : null);
     }
 
 }
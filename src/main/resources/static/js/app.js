@@ -21,55 +21,8 @@ const LoginButton = () => {
 };
 
 // UserTracks component to display user's top tracks
-const UserTracks = () => {
-    const [tracks, setTracks] = React.useState(null);
-    const [loading, setLoading] = React.useState(true);
-    const [error, setError] = React.useState(null);
-
-    React.useEffect(() => {
-        // Fetch user tracks data from the Spring Boot backend
-        // This will only be called when a bearer token exists (as checked by the App component)
-        fetch('/api/users/tracks')
-            .then(response => {
-                if (!response.ok) {
-                    if (response.status === 401) {
-                        throw new Error('Authentication error. Please log in again.');
-                    }
-                    throw new Error('Failed to fetch tracks');
-                }
-                return response.json();
-            })
-            .then(data => {
-                setTracks(data);
-                setLoading(false);
-            })
-            .catch(err => {
-                console.error('Error fetching tracks:', err);
-                setError(err.message);
-                setLoading(false);
-            });
-    }, []);
-
-    if (loading) {
-        return (
-            <div className="loading-spinner">
-                <div className="spinner-border text-primary" role="status">
-                    <span className="visually-hidden">Loading...</span>
-                </div>
-            </div>
-        );
-    }
-
-    if (error) {
-        return (
-            <div className="error-message">
-                <h3>Error Loading Tracks</h3>
-                <p>{error}</p>
-                <p>Please make sure you're logged in and try again.</p>
-            </div>
-        );
-    }
-
+// The data is loaded by UserProfile as part of the dashboard response
+const UserTracks = ({ tracks }) => {
     if (!tracks || !tracks.items || tracks.items.length === 0) {
         return <div className="alert alert-warning">No tracks available</div>;
     }
@@ -118,16 +71,69 @@ const UserTracks = () => {
     );
 };
 
+// UserCard component to display the user's profile
+// The data is loaded by UserProfile as part of the dashboard response
+const UserCard = ({ user }) => {
+    if (!user) {
+        return <div className="alert alert-warning">No user data available</div>;
+    }
+
+    return (
+        <div className="profile-card">
+            <div className="profile-header">
+                {user.images && user.images.length > 0 ? (
+                    <img 
+                        src={user.images[0].url} 
+                        alt={user.display_name} 
+                        className="profile-image"
+                    />
+                ) : (
+                    <div className="profile-image bg-secondary d-flex justify-content-center align-items-center">
+                        <span className="text-white fs-1">
+                            {user.display_name ? user.display_name.charAt(0).toUpperCase() : '?'}
+                        </span>
+                    </div>
+                )}
+
+                <div className="profile-info">
+                    <h2 className="profile-name">{user.display_name}</h2>
+                    <div className="profile-id">ID: {user.id}</div>
+                    <a 
+                        href={user.external_urls?.spotify} 
+                        target="_blank" 
+                        rel="noopener noreferrer"
+                        className="btn btn-success btn-sm"
+                    >
+                        Open in Spotify
+                    </a>
+                </div>
+            </div>
+
+            <div className="profile-stats">
+                <div className="stat-item">
+                    <div className="stat-value">{user.followers?.total || 0}</div>
+                    <div className="stat-label">Followers</div>
+                </div>
+                <div className="stat-item">
+                    <div className="stat-value">{user.type || 'User'}</div>
+                    <div className="stat-label">Account Type</div>
+                </div>
+            </div>
+        </div>
+    );
+};
+
 // UserProfile component to display user data
 const UserProfile = () => {
     const [user, setUser] = React.useState(null);
+    const [tracks, setTracks] = React.useState(null);
     const [loading, setLoading] = React.useState(true);
     const [error, setError] = React.useState(null);
 
     React.useEffect(() => {
-        // Fetch user profile data from the Spring Boot backend
+        // Fetch the profile and top artists in one round trip from the Spring Boot backend
         // This will only be called when a bearer token exists (as checked by the App component)
-        fetch('/api/users/profile')
+        fetch('/api/users/dashboard')
             .then(response => {
                 if (!response.ok) {
                     if (response.status === 401) {
@@ -138,7 +144,8 @@ const UserProfile = () => {
                 return response.json();
             })
             .then(data => {
-                setUser(data);
+                setUser(data.profile);
+                setTracks(data.topArtists);
                 setLoading(false);
             })
             .catch(err => {
@@ -168,56 +175,11 @@ const UserProfile = () => {
         );
     }
 
-    if (!user) {
-        return <div className="alert alert-warning">No user data available</div>;
-    }
-
-    // Render user profile
+    // Render each part on its own: a partial dashboard may lack either one
     return (
         <React.Fragment>
-            <div className="profile-card">
-                <div className="profile-header">
-                    {user.images && user.images.length > 0 ? (
-                        <img 
-                            src={user.images[0].url} 
-                            alt={user.display_name} 
-                            className="profile-image"
-                        />
-                    ) : (
-                        <div className="profile-image bg-secondary d-flex justify-content-center align-items-center">
-                            <span className="text-white fs-1">
-                                {user.display_name ? user.display_name.charAt(0).toUpperCase() : '?'}
-                            </span>
-                        </div>
-                    )}
-
-                    <div className="profile-info">
-                        <h2 className="profile-name">{user.display_name}</h2>
-                        <div className="profile-id">ID: {user.id}</div>
-                        <a 
-                            href={user.external_urls?.spotify} 
-                            target="_blank" 
-                            rel="noopener noreferrer"
-                            className="btn btn-success btn-sm"
-                        >
-                            Open in Spotify
-                        </a>
-                    </div>
-                </div>
-
-                <div className="profile-stats">
-                    <div className="stat-item">
-                        <div className="stat-value">{user.followers?.total || 0}</div>
-                        <div className="stat-label">Followers</div>
-                    </div>
-                    <div className="stat-item">
-                        <div className="stat-value">{user.type || 'User'}</div>
-                        <div className="stat-label">Account Type</div>
-                    </div>
-                </div>
-            </div>
-
-            <UserTracks />
+            <UserCard user={user} />
+            <UserTracks tracks={tracks} />
         </React.Fragment>
     );
 };
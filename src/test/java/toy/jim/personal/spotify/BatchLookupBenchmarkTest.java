@@ -0,0 +1,55 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+import toy.jim.personal.spotify.support.LoadDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many upstream calls {@link toy.jim.personal.spotify.service.SpotifyBatchLookup} saves when
+ * many clients look up single artists at once, against {@link FakeSpotifyServer} with 20-80 ms latency.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark -Dtest=BatchLookupBenchmarkTest}.
+ */
+@Tag("benchmark")
+class BatchLookupBenchmarkTest {
+
+    private static final int USERS = 100;
+    private static final int LOOKUPS_PER_USER = 20;
+
+    @Test
+    void measureBatching() throws Exception {
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start().withLatency(20, 80)) {
+            List<String> args = new ArrayList<>(spotify.applicationArgs());
+            args.add("--server.port=0");
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SpotifyApplication.class)
+                    .run(args.toArray(String[]::new))) {
+                LoadDriver driver = new LoadDriver("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port"));
+                // The catalog needs a logged-in caller; one login serves every user, as lookups use the app token
+                String cookie = driver.login();
+                driver.run(USERS, user -> {
+                    for (int i = 0; i < LOOKUPS_PER_USER; i++) {
+                        user.get("/api/catalog/artists?ids=artist" + ThreadLocalRandom.current().nextInt(100_000), cookie);
+                    }
+                });
+
+                int lookups = USERS * LOOKUPS_PER_USER;
+                System.out.printf("%n%d single-artist lookups by %d users: %d upstream calls (%.1f IDs per call)%n%s%n",
+                        lookups, USERS, spotify.apiRequests(), (double) spotify.lookedUpIds() / spotify.apiRequests(),
+                        driver.stats().format("/api/catalog/artists"));
+                assertEquals(0, driver.stats().errors());
+                // Without batching every lookup would be its own call; on one CPU a run varies between 8 and 11 IDs per call
+                assertTrue(spotify.apiRequests() * 5 <= lookups,
+                        "Expected at least 5 IDs per upstream call, got " + spotify.apiRequests() + " calls");
+            }
+        }
+    }
+}
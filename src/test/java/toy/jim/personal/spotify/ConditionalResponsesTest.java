@@ -0,0 +1,67 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+import toy.jim.personal.spotify.support.LoadDriver;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the application against {@link FakeSpotifyServer} and checks what a browser revisiting the
+ * dashboard gets: a compressed, validated answer the first time and an empty 304 afterwards.
+ */
+class ConditionalResponsesTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void testRepeatVisitsAreAnsweredWithNotModified() throws Exception {
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start().withPages(1)) {
+            List<String> args = new ArrayList<>(spotify.applicationArgs());
+            args.add("--server.port=0");
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SpotifyApplication.class)
+                    .run(args.toArray(String[]::new))) {
+                String baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+                String cookie = new LoadDriver(baseUrl).login();
+
+                for (String path : List.of("/api/users/dashboard", "/api/users/profile", "/api/users/tracks")) {
+                    HttpResponse<byte[]> first = get(baseUrl + path, cookie, null);
+                    assertEquals(200, first.statusCode(), path);
+                    String etag = first.headers().firstValue("ETag").orElseThrow();
+                    assertTrue(etag.startsWith("W/\""), etag);
+                    assertTrue(first.headers().firstValue("Last-Modified").isPresent(), path);
+                    assertEquals("no-cache, private", first.headers().firstValue("Cache-Control").orElseThrow());
+
+                    HttpResponse<byte[]> repeat = get(baseUrl + path, cookie, etag);
+                    assertEquals(304, repeat.statusCode(), path);
+                    assertEquals(0, repeat.body().length, path);
+                    assertEquals(etag, repeat.headers().firstValue("ETag").orElseThrow());
+                }
+
+                // Top artists are large enough to be compressed
+                HttpResponse<byte[]> tracks = get(baseUrl + "/api/users/tracks", cookie, null);
+                assertEquals("gzip", tracks.headers().firstValue("Content-Encoding").orElseThrow());
+            }
+        }
+    }
+
+    private HttpResponse<byte[]> get(String url, String cookie, String etag) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Cookie", cookie)
+                .header("Accept-Encoding", "gzip");
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,66 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+import toy.jim.personal.spotify.support.LoadDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test of {@link toy.jim.personal.spotify.controller.OAuthController} and
+ * {@link toy.jim.personal.spotify.controller.UserController} against {@link FakeSpotifyServer}.
+ * The stand-in adds 20-80 ms of latency, fails 2% and throttles 2% of its answers and spreads the
+ * top artists over several pages, so retries, the rate limiter and pagination are all exercised.
+ * Prints throughput and p50/p99 latency per endpoint. Excluded from the default build; run with
+ * {@code mvn test -Pbenchmark -Dtest=LoadBenchmarkTest}.
+ */
+@Tag("benchmark")
+class LoadBenchmarkTest {
+
+    private static final int USERS = 50;
+    private static final int ITERATIONS_PER_USER = 10;
+    private static final int PAGES = 4;
+
+    @Test
+    void measureEndpoints() throws Exception {
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start()
+                .withLatency(20, 80)
+                .withErrorRate(0.02)
+                .withThrottling(0.02, 0)
+                .withPages(PAGES)) {
+            List<String> args = new ArrayList<>(spotify.applicationArgs());
+            args.addAll(List.of(
+                    "--server.port=0",
+                    // Dashboards fan out to two calls, so leave room for every user in the bulkhead
+                    "--circuit-breaker.bulkhead-max-concurrent=" + 2 * USERS,
+                    // Force every request upstream so the stand-in's latency and faults are measured
+                    "--response-cache.default-ttl-ms=0",
+                    "--spotify.endpoints.profile.cache-ttl-ms=0",
+                    "--spotify.endpoints.top-artists.cache-ttl-ms=0"));
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SpotifyApplication.class)
+                    .run(args.toArray(String[]::new))) {
+                LoadDriver driver = new LoadDriver("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port"));
+                driver.run(USERS, user -> {
+                    String cookie = user.login();
+                    for (int i = 0; i < ITERATIONS_PER_USER; i++) {
+                        user.get("/api/oauth/bearer-token", cookie);
+                        user.get("/api/users/profile", cookie);
+                        user.get("/api/users/tracks", cookie);
+                        user.get("/api/users/dashboard", cookie);
+                        user.get("/api/users/tracks/stream", cookie);
+                    }
+                });
+
+                driver.printReport(String.format("%d users x %d iterations, %d Web API calls, %d injected 500s, %d injected 429s",
+                        USERS, ITERATIONS_PER_USER, spotify.apiRequests(), spotify.injectedErrors(), spotify.injectedThrottles()));
+                assertEquals(0, driver.stats().errors());
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the native executable against {@link FakeSpotifyServer}, logs a user in through the OAuth callback and
+ * calls the user and catalog endpoints, then reports the startup time and resident memory.
+ * Excluded from the default build; after {@code mvn -Pnative -DskipTests native:compile} run it with
+ * {@code mvn -Pnative test}. {@code -Dsmoke.command="java -jar target/spotify-0.0.1-SNAPSHOT.jar"} runs the
+ * same checks against the JVM build for comparison.
+ */
+@Tag("native")
+class NativeImageSmokeTest {
+
+    private static final Pattern PROCESS_RUNNING_FOR = Pattern.compile("process running for ([0-9.]+)\\)");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    @Test
+    void testLoginAndUserEndpoints() throws Exception {
+        List<String> command = new ArrayList<>(Arrays.asList(System.getProperty("smoke.command", "target/spotify").split(" ")));
+        assumeTrue(!command.get(0).contains("/") || Files.isExecutable(Path.of(command.get(0))),
+                command.get(0) + " not found; build it with mvn -Pnative -DskipTests native:compile");
+
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start()) {
+            int port = freePort();
+            command.addAll(spotify.applicationArgs());
+            command.add("--server.port=" + port);
+            Path log = Files.createTempFile("native-smoke", ".log");
+            long start = System.nanoTime();
+            Process app = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            try {
+                String baseUrl = "http://127.0.0.1:" + port;
+                long firstResponseMs = awaitHealthy(app, baseUrl, log, start);
+
+                HttpResponse<String> authorize = get(baseUrl + "/api/oauth/authorize", null);
+                assertEquals(302, authorize.statusCode());
+                String cookie = authorize.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+                String location = authorize.headers().firstValue("Location").orElseThrow();
+                String state = location.substring(location.indexOf("state=") + "state=".length());
+                HttpResponse<String> callback = get(baseUrl + "/api/oauth/callback?code=smoke&state="
+                        + URLEncoder.encode(state, StandardCharsets.UTF_8), cookie);
+                assertTrue(callback.headers().firstValue("Location").orElseThrow().contains("success=true"));
+
+                HttpResponse<String> profile = get(baseUrl + "/api/users/profile", cookie);
+                assertEquals(200, profile.statusCode());
+                assertTrue(profile.body().contains("\"display_name\":\"Load Test\""), profile.body());
+                HttpResponse<String> tracks = get(baseUrl + "/api/users/tracks", cookie);
+                assertEquals(200, tracks.statusCode());
+                assertTrue(tracks.body().contains("\"items\":[{"), tracks.body());
+                HttpResponse<String> dashboard = get(baseUrl + "/api/users/dashboard", cookie);
+                assertEquals(200, dashboard.statusCode());
+                assertTrue(dashboard.body().contains("\"topArtists\""), dashboard.body());
+                HttpResponse<String> stream = get(baseUrl + "/api/users/tracks/stream", cookie);
+                assertEquals(200, stream.statusCode());
+                assertTrue(stream.body().lines().count() > 1, stream.body());
+                assertEquals(401, get(baseUrl + "/api/catalog/artists?ids=smoke1", null).statusCode());
+                HttpResponse<String> artists = get(baseUrl + "/api/catalog/artists?ids=smoke1,smoke2", cookie);
+                assertEquals(200, artists.statusCode());
+                assertTrue(artists.body().contains("smoke2"), artists.body());
+
+                Matcher started = PROCESS_RUNNING_FOR.matcher(Files.readString(log));
+                System.out.printf("%n%s: started in %s s, first response after %d ms, %d MB resident after the requests%n",
+                        String.join(" ", command.subList(0, command.size() - spotify.applicationArgs().size() - 1)),
+                        started.find() ? started.group(1) : "?", firstResponseMs, residentMegabytes(app));
+            } finally {
+                app.destroy();
+                if (!app.waitFor(10, TimeUnit.SECONDS)) {
+                    app.destroyForcibly();
+                }
+                Files.deleteIfExists(log);
+            }
+        }
+    }
+
+    /**
+     * Poll the health endpoint until it answers 200.
+     *
+     * @return Milliseconds from the launch until then
+     */
+    private long awaitHealthy(Process app, String baseUrl, Path log, long start) throws Exception {
+        while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(60)) {
+            if (!app.isAlive()) {
+                fail("The application exited with " + app.exitValue() + ":\n" + Files.readString(log));
+            }
+            try {
+                if (get(baseUrl + "/actuator/health", null).statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+        fail("The application did not become healthy within 60 s:\n" + Files.readString(log));
+        return -1;
+    }
+
+    private HttpResponse<String> get(String url, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * @return The resident set size of the process from /proc, or -1 where there is none
+     */
+    private static long residentMegabytes(Process app) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(app.pid()), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024)
+                .findFirst()
+                .orElse(-1);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
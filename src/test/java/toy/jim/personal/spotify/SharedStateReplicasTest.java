@@ -0,0 +1,77 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two instances of the application with the shared profile over one H2 file, as two replicas
+ * behind a load balancer without sticky sessions, and sends each step of a user's visit to the other replica.
+ */
+class SharedStateReplicasTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    @Test
+    void testSessionMovesBetweenReplicas() throws Exception {
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start();
+             ConfigurableApplicationContext replicaA = startReplica(spotify);
+             ConfigurableApplicationContext replicaB = startReplica(spotify)) {
+
+            HttpResponse<Void> authorize = get(replicaA, "/api/oauth/authorize", null);
+            assertEquals(302, authorize.statusCode());
+            String cookie = authorize.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+            String location = authorize.headers().firstValue("Location").orElseThrow();
+            String callbackPath = "/api/oauth/callback?code=replicas&state="
+                    + URLEncoder.encode(location.substring(location.indexOf("state=") + "state=".length()), StandardCharsets.UTF_8);
+
+            // The state issued by A is accepted by B, once
+            assertTrue(get(replicaB, callbackPath, cookie).headers().firstValue("Location").orElseThrow().contains("success=true"));
+            assertTrue(get(replicaA, callbackPath, cookie).headers().firstValue("Location").orElseThrow().contains("invalid_state"));
+
+            // The token stored by B serves A, and the profile cached by A serves B without calling Spotify again
+            assertEquals(200, get(replicaA, "/api/users/profile", cookie).statusCode());
+            int apiRequests = spotify.apiRequests();
+            assertEquals(200, get(replicaB, "/api/users/profile", cookie).statusCode());
+            assertEquals(apiRequests, spotify.apiRequests());
+        }
+    }
+
+    private ConfigurableApplicationContext startReplica(FakeSpotifyServer spotify) {
+        List<String> args = new ArrayList<>(spotify.applicationArgs());
+        args.addAll(List.of(
+                "--server.port=0",
+                "--spring.profiles.active=shared",
+                "--spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("shared-state") + ";AUTO_SERVER=TRUE"));
+        return new SpringApplicationBuilder(SpotifyApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private HttpResponse<Void> get(ConfigurableApplicationContext replica, String path, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(
+                "http://127.0.0.1:" + replica.getEnvironment().getProperty("local.server.port") + path));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
@@ -0,0 +1,68 @@
+package toy.jim.personal.spotify;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import toy.jim.personal.spotify.support.FakeSpotifyServer;
+import toy.jim.personal.spotify.support.LoadDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load benchmark comparing the application on platform threads and on virtual threads.
+ * Spotify is replaced by {@link FakeSpotifyServer} delaying each response by 100-500 ms.
+ * Only the OAuth callback is measured: its token exchange is the one Spotify call that still blocks the
+ * request thread. The /api/users endpoints return futures composed on the non-blocking client, so they
+ * release their Tomcat thread while Spotify answers whatever the thread model, and are covered by
+ * {@link LoadBenchmarkTest} instead.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTest {
+
+    private static final int USERS = 200;
+    private static final int LOGINS_PER_USER = 10;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        try (FakeSpotifyServer spotify = FakeSpotifyServer.start().withLatency(100, 500)) {
+            LoadDriver.Stats platform = run(spotify, false);
+            LoadDriver.Stats virtual = run(spotify, true);
+
+            System.out.printf("%-28s %8s %10s %10s %10s %8s%n", "mode", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+            System.out.println(platform.format("platform"));
+            System.out.println(virtual.format("virtual"));
+
+            assertEquals(0, platform.errors());
+            assertEquals(0, virtual.errors());
+        }
+    }
+
+    private LoadDriver.Stats run(FakeSpotifyServer spotify, boolean virtualThreads) throws Exception {
+        List<String> args = new ArrayList<>(spotify.applicationArgs());
+        args.addAll(List.of(
+                "--server.port=0",
+                "--server.tomcat.threads.max=20",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                // Without the Tomcat thread cap every user logs in at once, so size the pool for it
+                "--http-client.max-per-route=" + USERS,
+                "--http-client.connection-request-timeout-ms=5000",
+                "--rate-limit.initial-limit=" + USERS,
+                "--rate-limit.max-limit=" + USERS,
+                "--circuit-breaker.bulkhead-max-concurrent=" + USERS));
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(SpotifyApplication.class)
+                .run(args.toArray(String[]::new))) {
+            LoadDriver driver = new LoadDriver("http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port"));
+            driver.run(USERS, user -> {
+                for (int i = 0; i < LOGINS_PER_USER; i++) {
+                    user.login();
+                }
+            });
+            return driver.stats("/api/oauth/callback");
+        }
+    }
+}
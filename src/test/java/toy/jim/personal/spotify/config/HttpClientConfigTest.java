@@ -0,0 +1,66 @@
+package toy.jim.personal.spotify.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "http-client.max-total=64",
+    "http-client.max-per-route=16",
+    "http-client.connect-timeout-ms=1500",
+    "http-client.socket-timeout-ms=3000",
+    "http-client.connection-request-timeout-ms=250",
+    "http-client.idle-eviction-ms=10000"
+})
+class HttpClientConfigTest {
+
+    @Autowired
+    private HttpClientConfig httpClientConfig;
+
+    @Autowired
+    private CloseableHttpClient spotifyHttpClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testPropertiesBinding() {
+        assertNotNull(httpClientConfig);
+        assertEquals(64, httpClientConfig.getMaxTotal());
+        assertEquals(16, httpClientConfig.getMaxPerRoute());
+        assertEquals(1500, httpClientConfig.getConnectTimeoutMs());
+        assertEquals(3000, httpClientConfig.getSocketTimeoutMs());
+        assertEquals(250, httpClientConfig.getConnectionRequestTimeoutMs());
+        assertEquals(10000, httpClientConfig.getIdleEvictionMs());
+    }
+
+    @Test
+    void testHttpClientBeanCreated() {
+        assertNotNull(spotifyHttpClient);
+    }
+
+    @Test
+    void testPoolGaugesArePublished() {
+        assertEquals(64, meterRegistry.get("spotify.http.pool.connections").tag("state", "max").gauge().value());
+        assertEquals(0, meterRegistry.get("spotify.http.pool.connections").tag("state", "leased").gauge().value());
+        assertNotNull(meterRegistry.get("spotify.http.pool.wait").timer());
+    }
+
+    @Test
+    void testDefaults() {
+        HttpClientConfig config = new HttpClientConfig();
+
+        assertEquals(200, config.getMaxTotal());
+        assertEquals(50, config.getMaxPerRoute());
+        assertEquals(2000, config.getConnectTimeoutMs());
+        assertEquals(5000, config.getSocketTimeoutMs());
+        assertEquals(1000, config.getConnectionRequestTimeoutMs());
+    }
+}
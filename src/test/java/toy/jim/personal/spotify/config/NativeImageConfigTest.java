@@ -0,0 +1,65 @@
+package toy.jim.personal.spotify.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.ReflectiveRuntimeHintsRegistrar;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.service.SpotifyResponseCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeImageConfigTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new ReflectiveRuntimeHintsRegistrar().registerRuntimeHints(hints, NativeImageConfig.class, SpotifyResponseCache.class);
+        new NativeImageConfig.Hints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testSpotifyModelsAndTheirNestedRecordsCanBeBound() {
+        for (Class<?> model : List.of(SpotifyTokenResponse.class, SpotifyUser.class, SpotifyUser.Followers.class,
+                SpotifyShowsResponse.class, SpotifyShowsResponse.Item.class, SpotifyShowsResponse.Image.class,
+                SpotifyProfileView.class, SpotifyProfileView.Image.class, SpotifyTopArtistsView.class,
+                SpotifyTopArtistsView.Artist.class, SpotifyArtistsResponse.class, SpotifyTracksResponse.class,
+                SpotifyTracksResponse.Album.class, SpotifyTracksResponse.ArtistRef.class, SpotifyDashboard.class)) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(model).test(hints), model.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(SpotifyUser.class, "display_name").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(SpotifyTokenResponse.class, "access_token").test(hints));
+    }
+
+    @Test
+    void testSharedCacheEntriesCanBeWritten() {
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("toy.jim.personal.spotify.service.SpotifyResponseCache$Entry")).test(hints));
+    }
+
+    @Test
+    void testConfigurationCanBeBound() {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(AuthConfig.class, "setClientId").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(SpotifyConfig.class, "setEndpoints").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(SpotifyConfig.Endpoint.class, "setQuery").test(hints));
+    }
+
+    @Test
+    void testHttpClientResourcesAreIncluded() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("mozilla/public-suffix-list.txt").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("org/apache/http/client/version.properties").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("org/apache/http/version.properties").test(hints));
+    }
+}
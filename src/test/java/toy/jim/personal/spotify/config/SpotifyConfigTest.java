@@ -7,10 +7,13 @@ import org.springframework.test.context.TestPropertySource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest
 @TestPropertySource(properties = {
-    "spotify.user-url=https://api.spotify.com/v1/me"
+    "spotify.endpoints.profile.base-url=http://127.0.0.1:9999",
+    "spotify.endpoints.profile.timeout-ms=1500",
+    "spotify.endpoints.top-artists.max-retries=1"
 })
 class SpotifyConfigTest {
 
@@ -20,15 +23,27 @@ class SpotifyConfigTest {
     @Test
     void testPropertiesBinding() {
         assertNotNull(spotifyConfig);
-        assertEquals("https://api.spotify.com/v1/me", spotifyConfig.getUserUrl());
+        SpotifyConfig.Endpoint profile = spotifyConfig.getEndpoints().get("profile");
+        assertEquals("/v1/me", profile.getPath());
+        assertEquals("http://127.0.0.1:9999", profile.getBaseUrl());
+        assertEquals(1500, profile.getTimeoutMs());
+        assertEquals(300000L, profile.getCacheTtlMs());
+
+        SpotifyConfig.Endpoint topArtists = spotifyConfig.getEndpoints().get("top-artists");
+        assertEquals("/v1/me/top/artists", topArtists.getPath());
+        assertNull(topArtists.getBaseUrl());
+        assertEquals(1, topArtists.getMaxRetries());
     }
 
     @Test
     void testSettersAndGetters() {
         SpotifyConfig config = new SpotifyConfig();
-        
-        config.setUserUrl("https://api.spotify.com/v1/users/123");
-        
-        assertEquals("https://api.spotify.com/v1/users/123", config.getUserUrl());
+
+        config.setApiBaseUrl("http://127.0.0.1:8081");
+        config.getEndpoints().get("profile").setTimeoutMs(500);
+
+        assertEquals("http://127.0.0.1:8081", config.getApiBaseUrl());
+        assertEquals("/v1/me", config.getEndpoints().get("profile").getPath());
+        assertEquals(500, config.getEndpoints().get("profile").getTimeoutMs());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package toy.jim.personal.spotify.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyToken;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+import toy.jim.personal.spotify.service.SpotifyBatchLookup;
+import toy.jim.personal.spotify.service.TokenStore;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogControllerTest {
+
+    @Mock
+    private SpotifyBatchLookup batchLookup;
+
+    @Mock
+    private TokenStore tokenStore;
+
+    @InjectMocks
+    private CatalogController catalogController;
+
+    @Test
+    void testGetArtists() {
+        MockHttpServletRequest request = loggedInRequest();
+        SpotifyShowsResponse.Item artist = new SpotifyShowsResponse.Item(null, null, List.of(), null, "a1", List.of(),
+                "Artist", 50, "artist", "spotify:artist:a1");
+        when(batchLookup.getArtists(List.of("a1", "a2")))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList(artist, null)));
+
+        ResponseEntity<SpotifyArtistsResponse> response = catalogController.getArtists(request, List.of("a1", "a2")).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Arrays.asList(artist, null), response.getBody().artists());
+    }
+
+    @Test
+    void testMoreIdsThanSpotifyAcceptsAreRejected() {
+        MockHttpServletRequest request = loggedInRequest();
+        List<String> ids = Collections.nCopies(CatalogController.MAX_IDS + 1, "t1");
+
+        ResponseEntity<SpotifyTracksResponse> response = catalogController.getTracks(request, ids).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(batchLookup);
+    }
+
+    @Test
+    void testAnonymousCallersAreRejected() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, catalogController.getArtists(request, List.of("a1")).join().getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, catalogController.getTracks(request, List.of("t1")).join().getStatusCode());
+        // No session is created for them
+        assertNull(request.getSession(false));
+        verifyNoInteractions(batchLookup, tokenStore);
+    }
+
+    @Test
+    void testSessionsWithoutTokenAreRejected() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession(null, "session-1"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, catalogController.getArtists(request, List.of("a1")).join().getStatusCode());
+        verifyNoInteractions(batchLookup);
+    }
+
+    private MockHttpServletRequest loggedInRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession(null, "session-1"));
+        when(tokenStore.get("session-1")).thenReturn(new SpotifyToken("access", null, null));
+        return request;
+    }
+}
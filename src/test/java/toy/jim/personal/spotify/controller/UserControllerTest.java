@@ -1,21 +1,36 @@
 package toy.jim.personal.spotify.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
 import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
 import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.VersionedResponse;
+import toy.jim.personal.spotify.service.PrefetchingPageIterator;
+import toy.jim.personal.spotify.service.SpotifyJson;
 import toy.jim.personal.spotify.service.UserServer;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,9 +40,17 @@ class UserControllerTest {
     @Mock
     private UserServer userServer;
 
+    @Spy
+    private SpotifyJson spotifyJson = new SpotifyJson(new ObjectMapper());
+
     @InjectMocks
     private UserController userController;
 
+    private static final String FIRST_PAGE = "https://api.spotify.com/v1/me/top/artists?limit=20";
+    private static final String SECOND_PAGE = "https://api.spotify.com/v1/me/top/artists?offset=20&limit=20";
+
+    private final MockHttpSession session = new MockHttpSession(null, "session-1");
+
     private SpotifyUser mockUser;
     private SpotifyShowsResponse mockShowsResponse;
 
@@ -86,10 +109,11 @@ class UserControllerTest {
     @Test
     void testGetUserProfile_Success() {
         // Mock UserServer behavior
-        when(userServer.getUser()).thenReturn(mockUser);
+        when(userServer.getUserAsync("session-1"))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(mockUser, "u1", 1_700_000_000_000L)));
 
         // Test the method
-        ResponseEntity<SpotifyUser> response = userController.getUserProfile();
+        ResponseEntity<SpotifyUser> response = userController.getUserProfile(session).join();
 
         // Verify
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -97,29 +121,33 @@ class UserControllerTest {
         assertEquals("Test User", response.getBody().display_name());
         assertEquals("123", response.getBody().id());
         assertEquals("test@example.com", response.getBody().email());
-        verify(userServer).getUser();
+        assertEquals("W/\"u1\"", response.getHeaders().getETag());
+        assertEquals(1_700_000_000_000L, response.getHeaders().getLastModified());
+        assertEquals("no-cache, private", response.getHeaders().getCacheControl());
+        verify(userServer).getUserAsync("session-1");
     }
 
     @Test
     void testGetUserProfile_NotFound() {
         // Mock UserServer behavior
-        when(userServer.getUser()).thenReturn(null);
+        when(userServer.getUserAsync("session-1")).thenReturn(CompletableFuture.completedFuture(null));
 
         // Test the method
-        ResponseEntity<SpotifyUser> response = userController.getUserProfile();
+        ResponseEntity<SpotifyUser> response = userController.getUserProfile(session).join();
 
         // Verify
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(userServer).getUser();
+        verify(userServer).getUserAsync("session-1");
     }
 
     @Test
     void testGetUserTracks_Success() {
         // Mock UserServer behavior
-        when(userServer.getTracks()).thenReturn(mockShowsResponse);
+        when(userServer.getTracksAsync("session-1"))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(mockShowsResponse, "t1", 1_700_000_000_000L)));
 
         // Test the method
-        ResponseEntity<SpotifyShowsResponse> response = userController.getUserTracks();
+        ResponseEntity<SpotifyShowsResponse> response = userController.getUserTracks(session).join();
 
         // Verify
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -128,19 +156,105 @@ class UserControllerTest {
         assertEquals(100, response.getBody().total());
         assertEquals(1, response.getBody().items().size());
         assertEquals("Test Show", response.getBody().items().get(0).name());
-        verify(userServer).getTracks();
+        verify(userServer).getTracksAsync("session-1");
     }
 
     @Test
     void testGetUserTracks_NotFound() {
         // Mock UserServer behavior
-        when(userServer.getTracks()).thenReturn(null);
+        when(userServer.getTracksAsync("session-1")).thenReturn(CompletableFuture.completedFuture(null));
 
         // Test the method
-        ResponseEntity<SpotifyShowsResponse> response = userController.getUserTracks();
+        ResponseEntity<SpotifyShowsResponse> response = userController.getUserTracks(session).join();
 
         // Verify
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(userServer).getTracks();
+        verify(userServer).getTracksAsync("session-1");
+    }
+
+    @Test
+    void testGetUserDashboard_Success() {
+        when(userServer.getDashboardAsync("session-1"))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(new SpotifyDashboard(
+                        new SpotifyProfileView("Test User", null, new SpotifyProfileView.Followers(100), "123", List.of(), "user"),
+                        new SpotifyTopArtistsView(1, List.of(new SpotifyTopArtistsView.Artist(
+                                null, List.of("podcast"), "456", List.of(), "Test Show", 80)))), "p1.a1", 0L)));
+
+        ResponseEntity<SpotifyDashboard> response = userController.getUserDashboard(session).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Test User", response.getBody().profile().display_name());
+        assertEquals("Test Show", response.getBody().topArtists().items().get(0).name());
+        assertEquals("W/\"p1.a1\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void testGetUserDashboard_PartialIsNotStored() {
+        when(userServer.getDashboardAsync("session-1")).thenReturn(CompletableFuture.completedFuture(
+                new VersionedResponse<>(new SpotifyDashboard(null, new SpotifyTopArtistsView(0, List.of())), null, 0L)));
+
+        ResponseEntity<SpotifyDashboard> response = userController.getUserDashboard(session).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+        assertEquals("no-store", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void testGetUserDashboard_NotFound() {
+        when(userServer.getDashboardAsync("session-1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        ResponseEntity<SpotifyDashboard> response = userController.getUserDashboard(session).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testStreamUserTracks_WritesOneArtistPerLine() throws Exception {
+        Map<String, SpotifyShowsResponse> pages = Map.of(
+                FIRST_PAGE, page(SECOND_PAGE),
+                SECOND_PAGE, page(null));
+        when(userServer.getTopArtistPages("session-1")).thenReturn(CompletableFuture.completedFuture(
+                new PrefetchingPageIterator(FIRST_PAGE, url -> CompletableFuture.completedFuture(pages.get(url)))));
+
+        ResponseEntity<StreamingResponseBody> response = userController.streamUserTracks(session).join();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Test Show", spotifyJson.getObjectMapper().readTree(lines[1]).get("name").asText());
+    }
+
+    @Test
+    void testStreamUserTracks_EndsWithErrorLineWhenAPageFails() throws Exception {
+        PrefetchingPageIterator pages = new PrefetchingPageIterator(FIRST_PAGE, url -> url.equals(FIRST_PAGE)
+                ? CompletableFuture.completedFuture(page(SECOND_PAGE))
+                : CompletableFuture.failedFuture(new IllegalStateException("upstream down")));
+        when(userServer.getTopArtistPages("session-1")).thenReturn(CompletableFuture.completedFuture(pages));
+
+        ResponseEntity<StreamingResponseBody> response = userController.streamUserTracks(session).join();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Test Show", spotifyJson.getObjectMapper().readTree(lines[0]).get("name").asText());
+        assertEquals(502, spotifyJson.getObjectMapper().readTree(lines[1]).get("error").get("status").asInt());
+    }
+
+    @Test
+    void testStreamUserTracks_NotFound() {
+        when(userServer.getTopArtistPages("session-1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        ResponseEntity<StreamingResponseBody> response = userController.streamUserTracks(session).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private SpotifyShowsResponse page(String next) {
+        return new SpotifyShowsResponse(null, 20, next, 0, null, 100, mockShowsResponse.items());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package toy.jim.personal.spotify.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyProfileViewTest {
+
+    private static final String PROFILE = "{\"display_name\":\"Test User\","
+            + "\"external_urls\":{\"spotify\":\"https://open.spotify.com/user/123\"},"
+            + "\"followers\":{\"href\":null,\"total\":100},\"href\":\"https://api.spotify.com/v1/users/123\",\"id\":\"123\","
+            + "\"images\":[{\"url\":\"https://example.com/300.jpg\",\"height\":300,\"width\":300},"
+            + "{\"url\":\"https://example.com/64.jpg\",\"height\":64,\"width\":64}],"
+            + "\"type\":\"user\",\"uri\":\"spotify:user:123\",\"country\":\"US\",\"email\":\"test@example.com\","
+            + "\"explicit_content\":{\"filter_enabled\":true,\"filter_locked\":false},\"product\":\"premium\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testDeserializesWhatTheUiShows() throws Exception {
+        SpotifyProfileView profile = objectMapper.readValue(PROFILE, SpotifyProfileView.class);
+
+        assertEquals("Test User", profile.display_name());
+        assertEquals("https://open.spotify.com/user/123", profile.external_urls().spotify());
+        assertEquals(100, profile.followers().total());
+        assertEquals("123", profile.id());
+        assertEquals("https://example.com/300.jpg", profile.images().get(0).url());
+        assertEquals("user", profile.type());
+    }
+
+    @Test
+    void testSerializesWithTheNamesOfTheFullProfile() throws Exception {
+        JsonNode view = objectMapper.valueToTree(objectMapper.readValue(PROFILE, SpotifyProfileView.class));
+        JsonNode full = objectMapper.valueToTree(objectMapper.readValue(PROFILE, SpotifyUser.class));
+
+        view.fieldNames().forEachRemaining(name -> assertTrue(full.has(name), name));
+        assertEquals(full.at("/images/0/url"), view.at("/images/0/url"));
+        assertEquals(full.at("/followers/total"), view.at("/followers/total"));
+        assertFalse(view.has("email"));
+    }
+}
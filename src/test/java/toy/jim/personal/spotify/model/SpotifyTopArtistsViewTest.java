@@ -0,0 +1,67 @@
+package toy.jim.personal.spotify.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyTopArtistsViewTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testDeserializesWhatTheUiShows() throws Exception {
+        SpotifyTopArtistsView page = objectMapper.readValue(topArtistsPage(2), SpotifyTopArtistsView.class);
+
+        assertEquals(1000, page.total());
+        assertEquals(2, page.items().size());
+        SpotifyTopArtistsView.Artist artist = page.items().get(1);
+        assertEquals("artist1", artist.id());
+        assertEquals("Artist 1", artist.name());
+        assertEquals(51, artist.popularity());
+        assertEquals("indie pop", artist.genres().get(0));
+        assertEquals("https://i.scdn.co/image/1a", artist.images().get(0).url());
+        assertEquals("https://open.spotify.com/artist/1", artist.external_urls().spotify());
+    }
+
+    @Test
+    void testReadsTheSameArtistsAsTheFullResponse() throws Exception {
+        byte[] page = topArtistsPage(50).getBytes(StandardCharsets.UTF_8);
+
+        SpotifyShowsResponse full = objectMapper.readValue(page, SpotifyShowsResponse.class);
+        SpotifyTopArtistsView view = objectMapper.readValue(page, SpotifyTopArtistsView.class);
+
+        assertEquals(full.items().size(), view.items().size());
+        for (int i = 0; i < view.items().size(); i++) {
+            assertEquals(full.items().get(i).id(), view.items().get(i).id());
+            assertEquals(full.items().get(i).name(), view.items().get(i).name());
+        }
+    }
+
+    /**
+     * A page of top artists shaped like Spotify's, with every property the full record reads.
+     */
+    private static String topArtistsPage(int items) {
+        StringBuilder json = new StringBuilder("{\"href\":\"https://api.spotify.com/v1/me/top/artists?offset=0&limit=")
+                .append(items).append("\",\"limit\":").append(items)
+                .append(",\"next\":null,\"offset\":0,\"previous\":null,\"total\":1000,\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"external_urls\":{\"spotify\":\"https://open.spotify.com/artist/").append(i).append("\"},")
+                    .append("\"followers\":{\"href\":null,\"total\":").append(1000 + i).append("},")
+                    .append("\"genres\":[\"indie pop\",\"swedish pop\"],")
+                    .append("\"href\":\"https://api.spotify.com/v1/artists/").append(i).append("\",")
+                    .append("\"id\":\"artist").append(i).append("\",")
+                    .append("\"images\":[{\"url\":\"https://i.scdn.co/image/").append(i).append("a\",\"height\":640,\"width\":640},")
+                    .append("{\"url\":\"https://i.scdn.co/image/").append(i).append("b\",\"height\":320,\"width\":320},")
+                    .append("{\"url\":\"https://i.scdn.co/image/").append(i).append("c\",\"height\":160,\"width\":160}],")
+                    .append("\"name\":\"Artist ").append(i).append("\",\"popularity\":").append(50 + i % 50)
+                    .append(",\"type\":\"artist\",\"uri\":\"spotify:artist:").append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,131 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.config.CircuitBreakerConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private CircuitBreakerConfig config;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        config = new CircuitBreakerConfig();
+        config.setSlidingWindowSize(4);
+        config.setMinimumCalls(4);
+        config.setOpenDurationMs(100);
+        config.setHalfOpenCalls(2);
+        config.setBulkheadMaxConcurrent(2);
+        breaker = new CircuitBreaker("api.spotify.com", config);
+    }
+
+    @Test
+    void testOpensWhenFailureRateReachesThreshold() {
+        call(false);
+        call(false);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        call(true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedOpen());
+    }
+
+    @Test
+    void testOnlyRecentCallsCount() {
+        call(true);
+        call(true);
+        call(false);
+        call(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker = new CircuitBreaker("api.spotify.com", config);
+        call(true);
+        for (int i = 0; i < 6; i++) {
+            call(false);
+        }
+        call(true);
+        assertEquals(0.25, breaker.getFailureRate(), 0.001);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenTrialCallsCloseOrReopenTheCircuit() throws Exception {
+        openCircuit();
+        Thread.sleep(150);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, first);
+        assertNotEquals(CircuitBreaker.REJECTED, second);
+        // Only the configured number of trial calls are let through
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+        breaker.release(first, false);
+        breaker.release(second, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        openCircuit();
+        Thread.sleep(150);
+        call(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testCallsFromBeforeTheCircuitOpenedAreNotTrialCalls() throws Exception {
+        config.setBulkheadMaxConcurrent(3);
+        breaker = new CircuitBreaker("api.spotify.com", config);
+        long straggler = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.NORMAL, straggler);
+        openCircuit();
+        Thread.sleep(150);
+
+        long first = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, first);
+        // A call made while the circuit was closed completes during the trial, and neither reopens
+        // the circuit nor frees a trial slot
+        breaker.release(straggler, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        long second = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, second);
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.release(first, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.release(second, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getInFlight());
+    }
+
+    @Test
+    void testBulkheadRejectsCallsBeyondLimit() {
+        long first = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, first);
+        assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedBulkhead());
+
+        breaker.cancel(first);
+        assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+        assertEquals(2, breaker.getInFlight());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void call(boolean failed) {
+        long permit = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.REJECTED, permit);
+        breaker.release(permit, failed);
+    }
+}
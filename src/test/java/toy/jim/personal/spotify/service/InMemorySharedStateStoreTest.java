@@ -0,0 +1,34 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySharedStateStoreTest {
+
+    private final InMemorySharedStateStore store = new InMemorySharedStateStore();
+
+    @Test
+    void testExpiredEntriesAreNotCounted() throws Exception {
+        store.put("token", "session-1", "value-1", 60000);
+        store.put("token", "session-2", "value-2", 0);
+        Thread.sleep(5);
+
+        assertEquals(List.of("session-1"), store.keys("token"));
+        assertEquals(1, store.size("token"));
+        assertEquals(1, store.evictExpired());
+        assertEquals(1, store.size("token"));
+    }
+
+    @Test
+    void testConditionalRemoveOnlyRemovesTheExpectedValue() {
+        store.put("refresh-lock", "session-1", "replica-b", 60000);
+
+        assertFalse(store.remove("refresh-lock", "session-1", "replica-a"));
+        assertEquals("replica-b", store.get("refresh-lock", "session-1").value());
+        assertTrue(store.remove("refresh-lock", "session-1", "replica-b"));
+        assertNull(store.get("refresh-lock", "session-1"));
+    }
+}
@@ -0,0 +1,163 @@
+package toy.jim.personal.spotify.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two stores over the same H2 file, standing in for two replicas.
+ */
+class JdbcSharedStateStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private JdbcSharedStateStore replicaA;
+    private JdbcSharedStateStore replicaB;
+
+    @BeforeEach
+    void setUp() {
+        replicaA = store();
+        replicaB = store();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void testEntriesAreVisibleToEveryReplica() {
+        replicaA.put("token", "session-1", "value-1", 60000);
+
+        assertEquals("value-1", replicaB.get("token", "session-1").value());
+        assertNull(replicaB.get("token", "session-2"));
+        assertNull(replicaB.get("oauth-state", "session-1"));
+
+        replicaB.put("token", "session-1", "value-2", 60000);
+        assertEquals("value-2", replicaA.get("token", "session-1").value());
+        assertEquals(List.of("session-1"), replicaA.keys("token"));
+        assertEquals(1, replicaA.size("token"));
+    }
+
+    @Test
+    void testReplaceKeepsExpiryAndTouchExtendsIt() {
+        replicaA.put("token", "session-1", "value-1", 60000);
+        long expiresAt = replicaA.get("token", "session-1").expiresAtMs();
+
+        assertTrue(replicaB.replace("token", "session-1", "value-2"));
+        assertFalse(replicaB.replace("token", "session-2", "value-2"));
+        assertEquals(new SharedStateStore.Entry("value-2", expiresAt), replicaA.get("token", "session-1"));
+
+        replicaB.touch("token", "session-1", 120000);
+        assertTrue(replicaA.get("token", "session-1").expiresAtMs() > expiresAt);
+    }
+
+    @Test
+    void testExpiredEntriesAreHiddenAndEvicted() throws Exception {
+        replicaA.put("oauth-state", "session-1", "state", 0);
+        replicaA.put("oauth-state", "session-2", "state", 60000);
+        Thread.sleep(5);
+
+        assertNull(replicaB.get("oauth-state", "session-1"));
+        assertNull(replicaB.take("oauth-state", "session-1"));
+        assertEquals(1, replicaB.size("oauth-state"));
+        assertEquals(1, replicaB.evictExpired());
+        assertEquals(0, replicaA.evictExpired());
+    }
+
+    @Test
+    void testTakeSucceedsOnceAcrossReplicas() throws Exception {
+        replicaA.put("oauth-state", "session-1", "state", 60000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            JdbcSharedStateStore replica = i % 2 == 0 ? replicaA : replicaB;
+            futures.add(executor.submit(() -> replica.take("oauth-state", "session-1")));
+        }
+        int taken = 0;
+        for (Future<String> future : futures) {
+            if ("state".equals(future.get())) {
+                taken++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, taken);
+        assertNull(replicaA.get("oauth-state", "session-1"));
+    }
+
+    @Test
+    void testPutIfAbsentSucceedsOnceAcrossReplicas() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            JdbcSharedStateStore replica = i % 2 == 0 ? replicaA : replicaB;
+            String value = "replica-" + i;
+            futures.add(executor.submit(() -> replica.putIfAbsent("refresh-lock", "session-1", value, 60000)));
+        }
+        int stored = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get()) {
+                stored++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, stored);
+        assertNotNull(replicaA.get("refresh-lock", "session-1"));
+    }
+
+    @Test
+    void testPutIfAbsentReplacesExpiredEntry() throws Exception {
+        replicaA.put("refresh-lock", "session-1", "replica-a", 0);
+        Thread.sleep(5);
+
+        assertTrue(replicaB.putIfAbsent("refresh-lock", "session-1", "replica-b", 60000));
+        assertEquals("replica-b", replicaA.get("refresh-lock", "session-1").value());
+    }
+
+    @Test
+    void testConditionalRemoveOnlyRemovesTheExpectedValue() {
+        replicaA.put("refresh-lock", "session-1", "replica-a", 60000);
+        replicaB.put("refresh-lock", "session-1", "replica-b", 60000);
+
+        assertFalse(replicaA.remove("refresh-lock", "session-1", "replica-a"));
+        assertEquals("replica-b", replicaA.get("refresh-lock", "session-1").value());
+        assertTrue(replicaB.remove("refresh-lock", "session-1", "replica-b"));
+        assertNull(replicaA.get("refresh-lock", "session-1"));
+    }
+
+    @Test
+    void testRemoveByPrefixTreatsPrefixLiterally() {
+        replicaA.put("response", "session_1 https://api.spotify.com/v1/me", "{}", 60000);
+        replicaA.put("response", "session_1 https://api.spotify.com/v1/me/top/artists", "{}", 60000);
+        replicaA.put("response", "sessionX1 https://api.spotify.com/v1/me", "{}", 60000);
+
+        replicaB.removeByPrefix("response", "session_1 ");
+
+        assertEquals(List.of("sessionX1 https://api.spotify.com/v1/me"), replicaA.keys("response"));
+    }
+
+    private JdbcSharedStateStore store() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:" + dataDir.resolve("shared-state") + ";AUTO_SERVER=TRUE");
+        dataSource.setUsername("sa");
+        dataSources.add(dataSource);
+        return new JdbcSharedStateStore(new JdbcTemplate(dataSource), "shared_state", true);
+    }
+}
@@ -1,14 +1,56 @@
 package toy.jim.personal.spotify.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import toy.jim.personal.spotify.config.AuthConfig;
+import toy.jim.personal.spotify.config.CircuitBreakerConfig;
+import toy.jim.personal.spotify.config.HttpClientConfig;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.config.TokenStoreConfig;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+import toy.jim.personal.spotify.model.SpotifyToken;
+
+import java.io.ByteArrayInputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Simplified test class for OAuthService.
@@ -17,16 +59,500 @@ import static org.mockito.Mockito.lenient;
 @ExtendWith(MockitoExtension.class)
 class OAuthServiceTest {
 
+    private static final URI TOKEN_URI = URI.create("https://accounts.spotify.com/api/token");
+
     @Mock
     private AuthConfig authConfig;
 
+    @Mock
+    private HttpClient httpClient;
+
+    @Spy
+    private SpotifyJson spotifyJson = spotifyJson();
+
+    @Spy
+    private TokenStore tokenStore = new TokenStore(new TokenStoreConfig(), new InMemorySharedStateStore());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Spy
+    private SpotifyRateLimiter rateLimiter = new SpotifyRateLimiter(new RateLimitConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private CircuitBreakerRegistry circuitBreakers = new CircuitBreakerRegistry(new CircuitBreakerConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private SpotifyClientMetrics clientMetrics = new SpotifyClientMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private SpotifyRequestTemplates requestTemplates = requestTemplates();
+
+    @Spy
+    private SpotifyEndpointCatalog endpoints = endpointCatalog();
+
     @InjectMocks
     private OAuthService oAuthService;
 
     @Test
     void testGetBearerToken() {
         // Initially, bearer token should be null
-        String bearerToken = oAuthService.getBearerToken();
+        String bearerToken = oAuthService.getBearerToken("session-1");
         assertNull(bearerToken);
     }
+
+    @Test
+    void testStateIsBoundToSession() {
+        String url = oAuthService.getAuthorizationUrl("session-1");
+        String state = url.substring(url.indexOf("state=") + "state=".length());
+
+        assertFalse(oAuthService.validateState("session-2", state));
+        assertTrue(oAuthService.validateState("session-1", state));
+        // A state parameter can only be used once
+        assertFalse(oAuthService.validateState("session-1", state));
+    }
+
+    @Test
+    void testTokensAreIsolatedPerSession() throws Exception {
+        BasicHttpResponse tokenResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        tokenResponse.setEntity(new ByteArrayEntity("{\"access_token\":\"abc\"}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(tokenResponse);
+
+        assertEquals("abc", oAuthService.exchangeCodeForToken("session-1", "code"));
+
+        assertEquals("abc", oAuthService.getBearerToken("session-1"));
+        assertNull(oAuthService.getBearerToken("session-2"));
+    }
+
+    @Test
+    void testExchangeKeepsRefreshTokenAndExpiry() throws Exception {
+        BasicHttpResponse tokenResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        tokenResponse.setEntity(new ByteArrayEntity(
+                "{\"access_token\":\"abc\",\"refresh_token\":\"r1\",\"expires_in\":3600}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(tokenResponse);
+
+        oAuthService.exchangeCodeForToken("session-1", "code");
+
+        SpotifyToken token = tokenStore.peek("session-1");
+        assertEquals("r1", token.refreshToken());
+        assertTrue(token.expiresAt().isAfter(Instant.now().plusSeconds(3500)));
+    }
+
+    @Test
+    void testConcurrentCallersShareSingleRefresh() throws Exception {
+        when(authConfig.getRefreshSkewMs()).thenReturn(60000L);
+        tokenStore.put("session-1", new SpotifyToken("old", "r1", Instant.now().minusSeconds(1)));
+
+        AtomicInteger refreshCalls = new AtomicInteger();
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            refreshCalls.incrementAndGet();
+            Thread.sleep(200);
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+            response.setEntity(new ByteArrayEntity(
+                    "{\"access_token\":\"new\",\"expires_in\":3600}".getBytes(StandardCharsets.UTF_8)));
+            return response;
+        });
+
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return oAuthService.getBearerToken("session-1");
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("new", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, refreshCalls.get());
+        // The refresh token is kept when Spotify does not rotate it
+        assertEquals("r1", tokenStore.peek("session-1").refreshToken());
+    }
+
+    @Test
+    void testAsyncCallersShareARefreshOffTheirThreads() throws Exception {
+        when(authConfig.getRefreshSkewMs()).thenReturn(60000L);
+        tokenStore.put("session-1", new SpotifyToken("old", "r1", Instant.now().minusSeconds(1)));
+
+        AtomicInteger refreshCalls = new AtomicInteger();
+        AtomicReference<Thread> refreshThread = new AtomicReference<>();
+        CountDownLatch release = new CountDownLatch(1);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            refreshCalls.incrementAndGet();
+            refreshThread.set(Thread.currentThread());
+            release.await(5, TimeUnit.SECONDS);
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+            response.setEntity(new ByteArrayEntity(
+                    "{\"access_token\":\"new\",\"expires_in\":3600}".getBytes(StandardCharsets.UTF_8)));
+            return response;
+        });
+
+        CompletableFuture<String> first = oAuthService.getBearerTokenAsync("session-1");
+        CompletableFuture<String> second = oAuthService.getBearerTokenAsync("session-1");
+
+        // Neither caller waited on the token endpoint
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+        release.countDown();
+        assertEquals("new", first.get(5, TimeUnit.SECONDS));
+        assertEquals("new", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, refreshCalls.get());
+        assertTrue(refreshThread.get().isVirtual());
+        assertEquals("new", tokenStore.peek("session-1").accessToken());
+    }
+
+    @Test
+    void testReplicasRedeemARefreshTokenOnce() throws Exception {
+        when(authConfig.getRefreshLeaseMs()).thenReturn(5000L);
+        when(authConfig.getRefreshSkewMs()).thenReturn(60000L);
+        when(authConfig.getProactiveRefreshWindowMs()).thenReturn(300000L);
+        SharedStateStore shared = new InMemorySharedStateStore();
+        TokenStore sharedTokens = new TokenStore(new TokenStoreConfig(), shared);
+        sharedTokens.put("session-1", new SpotifyToken("old", "r1", Instant.now().plusSeconds(120)));
+
+        AtomicInteger refreshCalls = new AtomicInteger();
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            int call = refreshCalls.incrementAndGet();
+            Thread.sleep(200);
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+            response.setEntity(new ByteArrayEntity(("{\"access_token\":\"new" + call
+                    + "\",\"refresh_token\":\"r" + (call + 1) + "\",\"expires_in\":3600}").getBytes(StandardCharsets.UTF_8)));
+            return response;
+        });
+
+        // Every replica runs the sweep over the same sessions at the same time
+        List<OAuthService> replicas = List.of(replica(shared), replica(shared), replica(shared));
+        ExecutorService executor = Executors.newFixedThreadPool(replicas.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> sweeps = new ArrayList<>();
+        for (OAuthService replica : replicas) {
+            sweeps.add(executor.submit(() -> {
+                start.await();
+                replica.refreshExpiringTokens();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> sweep : sweeps) {
+            sweep.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, refreshCalls.get());
+        assertEquals("r2", sharedTokens.peek("session-1").refreshToken());
+        assertEquals("new1", replicas.get(2).getBearerToken("session-1"));
+        assertFalse(sharedTokens.isRefreshLocked("session-1"));
+    }
+
+    @Test
+    void testReplicaWaitsForTokenRefreshedElsewhere() throws Exception {
+        when(authConfig.getRefreshLeaseMs()).thenReturn(5000L);
+        when(authConfig.getRefreshSkewMs()).thenReturn(60000L);
+        SharedStateStore shared = new InMemorySharedStateStore();
+        TokenStore otherReplica = new TokenStore(new TokenStoreConfig(), shared);
+        otherReplica.put("session-1", new SpotifyToken("old", "r1", Instant.now().minusSeconds(1)));
+        assertTrue(otherReplica.tryLockRefresh("session-1", 5000));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> bearerToken = executor.submit(() -> replica(shared).getBearerToken("session-1"));
+        Thread.sleep(150);
+        otherReplica.update("session-1", new SpotifyToken("new", "r2", Instant.now().plusSeconds(3600)));
+        otherReplica.unlockRefresh("session-1");
+
+        assertEquals("new", bearerToken.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        verify(httpClient, never()).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void testAsyncClientCredentialsTokenIsFetchedOffTheCallingThread() throws Exception {
+        AtomicReference<Thread> tokenThread = new AtomicReference<>();
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            tokenThread.set(Thread.currentThread());
+            return tokenResponse("app", 3600);
+        });
+
+        assertEquals("app", oAuthService.getAccessTokenAsync().get(5, TimeUnit.SECONDS));
+        assertTrue(tokenThread.get().isVirtual());
+
+        // Once cached, the token is handed out without a thread hop
+        assertTrue(oAuthService.getAccessTokenAsync().isDone());
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        assertEquals(1, meterRegistry.counter("spotify.app.token.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("spotify.app.token.requests", "result", "miss").count());
+    }
+
+    @Test
+    void testClientCredentialsTokenIsCached() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> tokenResponse("app", 3600));
+
+        assertEquals("app", oAuthService.getAccessToken());
+        assertEquals("app", oAuthService.getAccessToken());
+        assertEquals("app", oAuthService.getAccessToken());
+
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        assertEquals(2, meterRegistry.counter("spotify.app.token.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("spotify.app.token.requests", "result", "miss").count());
+        assertEquals(1, meterRegistry.timer("spotify.app.token.refresh").count());
+    }
+
+    @Test
+    void testClientCredentialsTokenIsRefreshedInBackground() throws Exception {
+        when(authConfig.getProactiveRefreshWindowMs()).thenReturn(300000L);
+        when(httpClient.execute(any(HttpUriRequest.class)))
+                .thenAnswer(invocation -> tokenResponse("first", 60))
+                .thenAnswer(invocation -> tokenResponse("second", 3600));
+
+        assertEquals("first", oAuthService.getAccessToken());
+        oAuthService.refreshExpiringAppToken();
+        assertEquals("second", oAuthService.getAccessToken());
+
+        // Not within the window any more, so the next scheduled run does nothing
+        oAuthService.refreshExpiringAppToken();
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void testClientCredentialsTokenIsRefreshedWithinSkew() throws Exception {
+        when(authConfig.getRefreshSkewMs()).thenReturn(60000L);
+        when(httpClient.execute(any(HttpUriRequest.class)))
+                .thenAnswer(invocation -> tokenResponse("first", 30))
+                .thenAnswer(invocation -> tokenResponse("second", 3600));
+
+        assertEquals("first", oAuthService.getAccessToken());
+        // Still valid for 30 s, but inside the skew, so the next caller refreshes it
+        assertEquals("second", oAuthService.getAccessToken());
+        assertEquals("second", oAuthService.getAccessToken());
+
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+        assertEquals(2, meterRegistry.counter("spotify.app.token.requests", "result", "miss").count());
+    }
+
+    @Test
+    void testConcurrentColdStartCountsOneMiss() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return tokenResponse("app", 3600);
+        });
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return oAuthService.getAccessToken();
+            }));
+        }
+        // The scheduled refresh finds nothing to do while a caller's refresh is in flight or done
+        Future<?> scheduled = executor.submit(() -> {
+            start.await();
+            oAuthService.refreshExpiringAppToken();
+            return null;
+        });
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("app", result.get(5, TimeUnit.SECONDS));
+        }
+        scheduled.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        assertEquals(1, meterRegistry.counter("spotify.app.token.requests", "result", "miss").count());
+        assertEquals(callers - 1, meterRegistry.counter("spotify.app.token.requests", "result", "hit").count());
+    }
+
+    @Test
+    void testScheduledAppTokenRefreshDoesNotRaceRequests() throws Exception {
+        when(authConfig.getProactiveRefreshWindowMs()).thenReturn(300000L);
+        AtomicInteger tokenCalls = new AtomicInteger();
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            int call = tokenCalls.incrementAndGet();
+            Thread.sleep(100);
+            return call == 1 ? tokenResponse("first", 60) : tokenResponse("second", 3600);
+        });
+        assertEquals("first", oAuthService.getAccessToken());
+
+        // Two scheduler runs overlapping (e.g. a slow token endpoint) refresh the token once
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            runs.add(executor.submit(() -> {
+                start.await();
+                oAuthService.refreshExpiringAppToken();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(2, tokenCalls.get());
+        assertEquals("second", oAuthService.getAccessToken());
+    }
+
+    @Test
+    void testTooManyRequestsIsRetriedAfterRetryAfter() throws Exception {
+        BasicHttpResponse throttled = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+        throttled.setHeader("Retry-After", "0");
+        throttled.setEntity(new ByteArrayEntity("{\"error\":{\"status\":429}}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(throttled, tokenResponse("abc", 3600));
+
+        assertEquals("abc", oAuthService.exchangeCodeForToken("session-1", "code"));
+
+        verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+        verify(rateLimiter).release(anyLong(), eq(true), eq(0L));
+        assertEquals(0, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void testEndpointRetryBudgetLimitsRetries() throws Exception {
+        SpotifyEndpoint defaults = endpoints.getDefaultPolicy();
+        doReturn(new SpotifyEndpoint(defaults.name(), defaults.url(), defaults.uri(), defaults.query(), defaults.timeoutMs(),
+                defaults.cacheTtlMs(), 0)).when(endpoints).policyFor(TOKEN_URI);
+        BasicHttpResponse throttled = new BasicHttpResponse(HttpVersion.HTTP_1_1, 429, "Too Many Requests");
+        throttled.setEntity(new ByteArrayEntity("{\"error\":{\"status\":429}}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(throttled);
+
+        assertNull(oAuthService.exchangeCodeForToken("session-1", "code"));
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    void testServerErrorOnTokenRequestIsNotRetried() throws Exception {
+        // The code may already have been redeemed, so sending it again could only fail
+        BasicHttpResponse unavailable = new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Service Unavailable");
+        unavailable.setEntity(new ByteArrayEntity("{\"error\":{\"status\":503}}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(unavailable);
+
+        assertNull(oAuthService.exchangeCodeForToken("session-1", "code"));
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        verify(rateLimiter).release(anyLong(), eq(true), eq(0L));
+    }
+
+    @Test
+    void testErrorStatusIsNotDeserialized() throws Exception {
+        BasicHttpResponse badRequest = new BasicHttpResponse(HttpVersion.HTTP_1_1, 400, "Bad Request");
+        badRequest.setEntity(new ByteArrayEntity("{\"error\":\"invalid_grant\"}".getBytes(StandardCharsets.UTF_8)));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(badRequest);
+
+        assertNull(oAuthService.exchangeCodeForToken("session-1", "code"));
+        assertNull(tokenStore.get("session-1"));
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        verify(rateLimiter).release(anyLong(), eq(false), eq(0L));
+    }
+
+    @Test
+    void testOpenCircuitFailsFastWithoutCallingSpotify() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenThrow(new SocketTimeoutException("Read timed out"));
+
+        // Enough timeouts to reach the minimum number of calls and open the circuit
+        for (int i = 0; i < 10; i++) {
+            assertNull(oAuthService.exchangeCodeForToken("session-1", "code"));
+        }
+        assertNull(oAuthService.exchangeCodeForToken("session-1", "code"));
+
+        verify(httpClient, times(10)).execute(any(HttpUriRequest.class));
+        CircuitBreaker breaker = circuitBreakers.forUri(TOKEN_URI);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, breaker.getRejectedOpen());
+    }
+
+    @Test
+    void testRequestTimePayloadAndDeserializationAreRecorded() throws Exception {
+        byte[] body = "{\"access_token\":\"abc\",\"expires_in\":3600}".getBytes(StandardCharsets.UTF_8);
+        BasicHttpResponse ok = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        ok.setEntity(new InputStreamEntity(new ByteArrayInputStream(body), -1, ContentType.APPLICATION_JSON));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(ok);
+
+        oAuthService.exchangeCodeForToken("session-1", "code");
+
+        verify(clientMetrics).recordRequest(eq("POST"), eq(TOKEN_URI), eq(200), anyLong());
+        verify(clientMetrics).recordResponseSize(TOKEN_URI, body.length);
+        verify(clientMetrics).recordDeserialization(eq(TOKEN_URI), eq(SpotifyToken.class), anyLong());
+    }
+
+    @Test
+    void testResponseEntityIsStreamedAndFullyConsumed() throws Exception {
+        byte[] body = "{\"access_token\":\"abc\",\"expires_in\":3600}".getBytes(StandardCharsets.UTF_8);
+        TrackingInputStream content = new TrackingInputStream(body);
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new InputStreamEntity(content, body.length, ContentType.APPLICATION_JSON));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(response);
+
+        assertEquals("abc", oAuthService.exchangeCodeForToken("session-1", "code"));
+        assertTrue(content.closed, "Response stream should be closed so the connection returns to the pool");
+    }
+
+    /**
+     * A second instance of the service under test, as on another replica: its own token store, coalescer and
+     * clients over the given shared state, with the same configuration and upstream.
+     */
+    private OAuthService replica(SharedStateStore shared) {
+        return new OAuthService(authConfig, spotifyJson, httpClient, new TokenStore(new TokenStoreConfig(), shared),
+                new SimpleMeterRegistry(), new RequestCoalescer(),
+                new SpotifyRateLimiter(new RateLimitConfig(), new SimpleMeterRegistry()),
+                new CircuitBreakerRegistry(new CircuitBreakerConfig(), new SimpleMeterRegistry()),
+                new SpotifyClientMetrics(new SimpleMeterRegistry()), requestTemplates, endpoints);
+    }
+
+    static SpotifyRequestTemplates requestTemplates() {
+        return requestTemplates(new SpotifyConfig());
+    }
+
+    static SpotifyRequestTemplates requestTemplates(SpotifyConfig spotifyConfig) {
+        AuthConfig authConfig = new AuthConfig();
+        authConfig.setClientId("id");
+        authConfig.setClientSecret("secret");
+        authConfig.setTokenUrl("https://accounts.spotify.com/api/token");
+        authConfig.setAuthorizationUrl("https://accounts.spotify.com/authorize");
+        authConfig.setRedirectUri("http://localhost/callback");
+        authConfig.setScopes("user-read-private user-top-read");
+        return new SpotifyRequestTemplates(authConfig, spotifyConfig, endpointCatalog(spotifyConfig));
+    }
+
+    static SpotifyJson spotifyJson() {
+        return new SpotifyJson(new ObjectMapper());
+    }
+
+    static SpotifyEndpointCatalog endpointCatalog() {
+        return endpointCatalog(new SpotifyConfig());
+    }
+
+    static SpotifyEndpointCatalog endpointCatalog(SpotifyConfig spotifyConfig) {
+        return new SpotifyEndpointCatalog(spotifyConfig, new HttpClientConfig(), new RateLimitConfig(), new ResponseCacheConfig());
+    }
+
+    private static BasicHttpResponse tokenResponse(String accessToken, long expiresIn) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(
+                ("{\"access_token\":\"" + accessToken + "\",\"expires_in\":" + expiresIn + "}")
+                        .getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    private static final class TrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        TrackingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
 }
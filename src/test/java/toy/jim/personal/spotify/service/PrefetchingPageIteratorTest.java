@@ -0,0 +1,104 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchingPageIteratorTest {
+
+    private static final String PAGE_1 = "https://api.spotify.com/v1/me/top/artists?limit=1";
+    private static final String PAGE_2 = "https://api.spotify.com/v1/me/top/artists?offset=1&limit=1";
+    private static final String PAGE_3 = "https://api.spotify.com/v1/me/top/artists?offset=2&limit=1";
+
+    private final List<String> requested = new ArrayList<>();
+
+    @Test
+    void testFollowsNextLinksAndPrefetches() {
+        Map<String, SpotifyShowsResponse> pages = Map.of(
+                PAGE_1, page(PAGE_2, 0),
+                PAGE_2, page(PAGE_3, 1),
+                PAGE_3, page(null, 2));
+        PrefetchingPageIterator iterator = new PrefetchingPageIterator(PAGE_1, this.fetchFrom(pages));
+
+        assertTrue(iterator.firstPageAvailable().join());
+        assertTrue(iterator.hasNext());
+        // The second page is already requested while the first one is handed out
+        assertEquals(List.of(PAGE_1, PAGE_2), requested);
+        assertEquals(0, iterator.next().offset());
+        assertEquals(1, iterator.next().offset());
+        assertEquals(2, iterator.next().offset());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertEquals(List.of(PAGE_1, PAGE_2, PAGE_3), requested);
+        assertFalse(iterator.isIncomplete());
+    }
+
+    @Test
+    void testStopsWhenPageFails() {
+        PrefetchingPageIterator iterator = new PrefetchingPageIterator(PAGE_1, url -> {
+            requested.add(url);
+            return url.equals(PAGE_1)
+                    ? CompletableFuture.completedFuture(page(PAGE_2, 0))
+                    : CompletableFuture.failedFuture(new IllegalStateException("upstream down"));
+        });
+
+        assertEquals(0, iterator.next().offset());
+        assertFalse(iterator.isIncomplete());
+        assertFalse(iterator.hasNext());
+        assertTrue(iterator.isIncomplete());
+    }
+
+    @Test
+    void testDoesNotFollowNextLinksToAnotherOrigin() {
+        Map<String, SpotifyShowsResponse> pages = Map.of(
+                PAGE_1, page("https://attacker.example/v1/me/top/artists?offset=1", 0));
+        PrefetchingPageIterator iterator = new PrefetchingPageIterator(PAGE_1, this.fetchFrom(pages));
+
+        assertEquals(0, iterator.next().offset());
+        assertFalse(iterator.hasNext());
+        assertTrue(iterator.isIncomplete());
+        assertEquals(List.of(PAGE_1), requested);
+    }
+
+    @Test
+    void testDoesNotFollowNextLinksToAnotherSchemeOrPort() {
+        for (String next : List.of("http://api.spotify.com/v1/me/top/artists?offset=1",
+                "https://api.spotify.com:8443/v1/me/top/artists?offset=1")) {
+            PrefetchingPageIterator iterator = new PrefetchingPageIterator(PAGE_1, this.fetchFrom(Map.of(PAGE_1, page(next, 0))));
+
+            iterator.next();
+            assertFalse(iterator.hasNext(), next);
+            assertTrue(iterator.isIncomplete(), next);
+        }
+        assertEquals(List.of(PAGE_1, PAGE_1), requested);
+    }
+
+    @Test
+    void testEmptyWhenFirstPageMissing() {
+        PrefetchingPageIterator iterator = new PrefetchingPageIterator(PAGE_1,
+                url -> CompletableFuture.completedFuture(null));
+
+        assertFalse(iterator.firstPageAvailable().join());
+        assertFalse(iterator.hasNext());
+    }
+
+    private Function<String, CompletableFuture<SpotifyShowsResponse>> fetchFrom(
+            Map<String, SpotifyShowsResponse> pages) {
+        return url -> {
+            requested.add(url);
+            return CompletableFuture.completedFuture(pages.get(url));
+        };
+    }
+
+    private static SpotifyShowsResponse page(String next, int offset) {
+        return new SpotifyShowsResponse(null, 1, next, offset, null, 3, List.of());
+    }
+}
@@ -0,0 +1,87 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Test
+    void testCallersJoinInFlightCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("key", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "result";
+                }));
+        while (requestCoalescer.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+                requestCoalescer.execute("key", () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                }));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    @Test
+    void testDifferentKeysAreNotCoalesced() {
+        assertEquals("a", requestCoalescer.execute("a", () -> "a"));
+        assertEquals("b", requestCoalescer.execute("b", () -> "b"));
+    }
+
+    @Test
+    void testFailureIsPropagatedAndKeyReleased() {
+        assertThrows(IllegalStateException.class, () -> requestCoalescer.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("ok", requestCoalescer.execute("key", () -> "ok"));
+    }
+
+    @Test
+    void testCancellingOneCallerDoesNotAffectTheOthers() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> first = requestCoalescer.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = requestCoalescer.executeAsync("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        first.cancel(true);
+        upstream.complete("result");
+
+        assertTrue(first.isCancelled());
+        assertEquals("result", second.join());
+        assertEquals(1, calls.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
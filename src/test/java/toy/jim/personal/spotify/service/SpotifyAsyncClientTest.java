@@ -0,0 +1,285 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import toy.jim.personal.spotify.config.CircuitBreakerConfig;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+import toy.jim.personal.spotify.model.ConditionalResponse;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpotifyAsyncClientTest {
+
+    @Mock
+    private OAuthService oAuthService;
+
+    @Mock
+    private HttpClient spotifyAsyncHttpClient;
+
+    @Spy
+    private SpotifyRequestTemplates requestTemplates = OAuthServiceTest.requestTemplates();
+
+    @Spy
+    private SpotifyEndpointCatalog endpoints = OAuthServiceTest.endpointCatalog();
+
+    @Spy
+    private SpotifyJson spotifyJson = OAuthServiceTest.spotifyJson();
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Spy
+    private SpotifyRateLimiter rateLimiter = new SpotifyRateLimiter(new RateLimitConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private CircuitBreakerRegistry circuitBreakers = new CircuitBreakerRegistry(new CircuitBreakerConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private SpotifyClientMetrics clientMetrics = new SpotifyClientMetrics(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private SpotifyAsyncClient spotifyAsyncClient;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConditionalGetDeserializesBody() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of("ETag", List.of("\"v1\"")), (a, b) -> true));
+        when(response.body()).thenReturn("{\"display_name\":\"Test User\",\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(spotifyAsyncHttpClient.sendAsync(request.capture(), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        SpotifyUser user = getUser().join();
+
+        assertEquals("Test User", user.display_name());
+        assertEquals("Bearer abc", request.getValue().headers().firstValue("Authorization").orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGzipResponsesAreInflated() throws IOException {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        byte[] json = "{\"display_name\":\"Test User\",\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip")), (a, b) -> true));
+        when(response.body()).thenReturn(compressed.toByteArray());
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(spotifyAsyncHttpClient.sendAsync(request.capture(), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        SpotifyProfileView profile = spotifyAsyncClient.getConditional("session-1", "https://api.spotify.com/v1/me",
+                SpotifyProfileView.class, null).join().body();
+
+        assertEquals("Test User", profile.display_name());
+        assertEquals("gzip", request.getValue().headers().firstValue("Accept-Encoding").orElseThrow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCatalogLookupsUseClientCredentialsToken() {
+        when(oAuthService.getAccessTokenAsync()).thenReturn(CompletableFuture.completedFuture("app"));
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(response.body()).thenReturn("{\"artists\":[{\"id\":\"a1\",\"name\":\"Artist\"},null]}".getBytes(StandardCharsets.UTF_8));
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(spotifyAsyncHttpClient.sendAsync(request.capture(), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        SpotifyArtistsResponse artists = spotifyAsyncClient
+                .getWithAppToken("https://api.spotify.com/v1/artists?ids=a1,a2", SpotifyArtistsResponse.class).join();
+
+        assertEquals("a1", artists.artists().get(0).id());
+        assertNull(artists.artists().get(1));
+        assertEquals("Bearer app", request.getValue().headers().firstValue("Authorization").orElseThrow());
+        verify(oAuthService, never()).getBearerTokenAsync(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConcurrentProjectionsOfOneUrlAreNotCoalesced() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(response.body()).thenReturn("{\"display_name\":\"Test User\",\"id\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+        CountDownLatch release = new CountDownLatch(1);
+        when(spotifyAsyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+                    await(release);
+                    return response;
+                }));
+
+        // Both calls are in flight for the same URL and token until the latch opens
+        CompletableFuture<ConditionalResponse<SpotifyUser>> user = spotifyAsyncClient
+                .getConditional("session-1", "https://api.spotify.com/v1/me", SpotifyUser.class, null);
+        CompletableFuture<ConditionalResponse<SpotifyProfileView>> profile = spotifyAsyncClient
+                .getConditional("session-1", "https://api.spotify.com/v1/me", SpotifyProfileView.class, null);
+        release.countDown();
+
+        assertInstanceOf(SpotifyUser.class, user.join().body());
+        assertInstanceOf(SpotifyProfileView.class, profile.join().body());
+        verify(spotifyAsyncHttpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNotModifiedSkipsDeserialization() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(304);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(spotifyAsyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        ConditionalResponse<SpotifyUser> result = spotifyAsyncClient
+                .getConditional("session-1", "https://api.spotify.com/v1/me", SpotifyUser.class, "\"v1\"").join();
+
+        assertTrue(result.notModified());
+        assertEquals("\"v1\"", result.etag());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailureCompletesAsUnavailable() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        when(spotifyAsyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("connection reset")));
+
+        ConditionalResponse<SpotifyUser> response = getUserResponse().join();
+        assertTrue(response.isUnavailable());
+        assertEquals(0, response.status());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testServiceUnavailableIsRetried() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        HttpResponse<byte[]> unavailable = mock(HttpResponse.class);
+        when(unavailable.statusCode()).thenReturn(503);
+        when(unavailable.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        HttpResponse<byte[]> ok = mock(HttpResponse.class);
+        when(ok.statusCode()).thenReturn(200);
+        when(ok.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(ok.body()).thenReturn("{\"display_name\":\"Test User\"}".getBytes(StandardCharsets.UTF_8));
+        when(spotifyAsyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(unavailable), CompletableFuture.completedFuture(ok));
+
+        SpotifyUser user = getUser().join();
+
+        assertEquals("Test User", user.display_name());
+        verify(rateLimiter).release(anyLong(), eq(true), eq(0L));
+        verify(rateLimiter).release(anyLong(), eq(false), eq(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testClientErrorCompletesWithItsStatus() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture("abc"));
+        HttpResponse<byte[]> unauthorized = mock(HttpResponse.class);
+        when(unauthorized.statusCode()).thenReturn(401);
+        when(unauthorized.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(spotifyAsyncHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(unauthorized));
+
+        ConditionalResponse<SpotifyUser> response = getUserResponse().join();
+        assertTrue(response.isFailed());
+        assertFalse(response.isUnavailable());
+        assertEquals(401, response.status());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRequestIsSentOnceTheTokenRefreshCompletes() {
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(refresh);
+
+        CompletableFuture<SpotifyUser> user = getUser();
+
+        // The caller gets a pending future while the token is refreshed
+        assertFalse(user.isDone());
+        verifyNoInteractions(spotifyAsyncHttpClient);
+
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (a, b) -> true));
+        when(response.body()).thenReturn("{\"display_name\":\"Test User\"}".getBytes(StandardCharsets.UTF_8));
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(spotifyAsyncHttpClient.sendAsync(request.capture(), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        refresh.complete("refreshed");
+
+        assertEquals("Test User", user.join().display_name());
+        assertEquals("Bearer refreshed", request.getValue().headers().firstValue("Authorization").orElseThrow());
+    }
+
+    @Test
+    void testMissingTokenCompletesAsUnauthorized() {
+        when(oAuthService.getBearerTokenAsync("session-1")).thenReturn(CompletableFuture.completedFuture(null));
+
+        ConditionalResponse<SpotifyUser> response = getUserResponse().join();
+        assertEquals(401, response.status());
+        assertFalse(response.isUnavailable());
+        verifyNoInteractions(spotifyAsyncHttpClient);
+    }
+
+    private CompletableFuture<ConditionalResponse<SpotifyUser>> getUserResponse() {
+        return spotifyAsyncClient.getConditional("session-1", "https://api.spotify.com/v1/me", SpotifyUser.class, null);
+    }
+
+    private CompletableFuture<SpotifyUser> getUser() {
+        return getUserResponse().thenApply(ConditionalResponse::body);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Latch was not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import toy.jim.personal.spotify.config.BatchLookupConfig;
+import toy.jim.personal.spotify.model.SpotifyArtistsResponse;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTracksResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpotifyBatchLookupTest {
+
+    private static final String ARTISTS_URL = "https://api.spotify.com/v1/artists?ids=";
+
+    @Mock
+    private SpotifyAsyncClient spotifyAsyncClient;
+
+    private BatchLookupConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private SpotifyBatchLookup batchLookup;
+
+    @BeforeEach
+    void setUp() {
+        config = new BatchLookupConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        batchLookup = new SpotifyBatchLookup(spotifyAsyncClient, OAuthServiceTest.endpointCatalog(), config, meterRegistry);
+    }
+
+    @Test
+    void testIdsWithinWindowShareOneCall() {
+        config.setWindowMs(200);
+        when(spotifyAsyncClient.getWithAppToken(ARTISTS_URL + "a1,a2,a3", SpotifyArtistsResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(new SpotifyArtistsResponse(
+                        List.of(artist("a1"), artist("a2"), artist("a3")))));
+
+        CompletableFuture<SpotifyShowsResponse.Item> first = batchLookup.getArtist("a1");
+        CompletableFuture<List<SpotifyShowsResponse.Item>> rest = batchLookup.getArtists(List.of("a2", "a3", "a1"));
+
+        assertEquals("a1", first.join().id());
+        assertEquals(List.of("a2", "a3", "a1"), rest.join().stream().map(SpotifyShowsResponse.Item::id).toList());
+        verify(spotifyAsyncClient, times(1)).getWithAppToken(anyString(), eq(SpotifyArtistsResponse.class));
+    }
+
+    @Test
+    void testConcurrentCallersAreSplitIntoFullBatches() throws Exception {
+        config.setWindowMs(60000);
+        when(spotifyAsyncClient.getWithAppToken(anyString(), eq(SpotifyArtistsResponse.class))).thenAnswer(invocation -> {
+            String url = invocation.getArgument(0);
+            List<SpotifyShowsResponse.Item> artists = Arrays.stream(url.substring(ARTISTS_URL.length()).split(","))
+                    .map(SpotifyBatchLookupTest::artist)
+                    .toList();
+            return CompletableFuture.completedFuture(new SpotifyArtistsResponse(artists));
+        });
+
+        List<CompletableFuture<SpotifyShowsResponse.Item>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CompletableFuture<SpotifyShowsResponse.Item>>> submitted = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                String id = "artist" + i;
+                submitted.add(executor.submit(() -> batchLookup.getArtist(id)));
+            }
+            for (Future<CompletableFuture<SpotifyShowsResponse.Item>> future : submitted) {
+                futures.add(future.get());
+            }
+        }
+
+        // 500 IDs in batches of 50 are complete without waiting for the (one minute) window
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("artist" + i, futures.get(i).join().id());
+        }
+        verify(spotifyAsyncClient, times(10)).getWithAppToken(anyString(), eq(SpotifyArtistsResponse.class));
+        assertEquals(500, meterRegistry.counter("spotify.batch.lookup.ids", "endpoint", "artists").count());
+        assertEquals(50.0, meterRegistry.summary("spotify.batch.lookup.size", "endpoint", "artists").mean());
+    }
+
+    @Test
+    void testUnknownIdsAndFailuresCompleteWithNull() {
+        config.setWindowMs(200);
+        when(spotifyAsyncClient.getWithAppToken(ARTISTS_URL + "a1,missing", SpotifyArtistsResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(new SpotifyArtistsResponse(Arrays.asList(artist("a1"), null))));
+        when(spotifyAsyncClient.getWithAppToken("https://api.spotify.com/v1/tracks?ids=t1", SpotifyTracksResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        List<SpotifyShowsResponse.Item> artists = batchLookup.getArtists(List.of("a1", "missing")).join();
+        SpotifyTracksResponse.Track track = batchLookup.getTrack("t1").join();
+
+        assertEquals("a1", artists.get(0).id());
+        assertNull(artists.get(1));
+        assertNull(track);
+    }
+
+    @Test
+    void testMalformedIdsAreNotSentUpstream() {
+        assertNull(batchLookup.getArtist("a1&market=US").join());
+        assertNull(batchLookup.getTrack("").join());
+
+        verify(spotifyAsyncClient, never()).getWithAppToken(anyString(), eq(SpotifyArtistsResponse.class));
+        verify(spotifyAsyncClient, never()).getWithAppToken(anyString(), eq(SpotifyTracksResponse.class));
+    }
+
+    private static SpotifyShowsResponse.Item artist(String id) {
+        return new SpotifyShowsResponse.Item(null, null, List.of(), null, id, List.of(), "Artist " + id, 50, "artist", "spotify:artist:" + id);
+    }
+}
@@ -0,0 +1,58 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyClientMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SpotifyClientMetrics clientMetrics = new SpotifyClientMetrics(meterRegistry);
+
+    @Test
+    void testEndpointTemplateDropsQueryAndIds() {
+        assertEquals("/v1/me/top/artists",
+                SpotifyClientMetrics.endpoint(URI.create("https://api.spotify.com/v1/me/top/artists?offset=50&limit=50")));
+        assertEquals("/v1/artists/{id}/top-tracks",
+                SpotifyClientMetrics.endpoint(URI.create("https://api.spotify.com/v1/artists/0TnOYISbd1XYRBk9myaseg/top-tracks")));
+        assertEquals("/", SpotifyClientMetrics.endpoint(URI.create("https://api.spotify.com")));
+    }
+
+    @Test
+    void testRequestsAreTaggedByEndpointAndStatus() {
+        URI uri = URI.create("https://api.spotify.com/v1/me?market=US");
+        clientMetrics.recordRequest("GET", uri, 200, TimeUnit.MILLISECONDS.toNanos(120));
+        clientMetrics.recordRequest("GET", uri, 0, TimeUnit.MILLISECONDS.toNanos(5000));
+
+        Timer ok = meterRegistry.get("spotify.client.requests")
+                .tags("endpoint", "/v1/me", "status", "200", "outcome", "SUCCESS", "host", "api.spotify.com").timer();
+        assertEquals(1, ok.count());
+        assertEquals(120, ok.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, meterRegistry.get("spotify.client.requests").tags("status", "IO_ERROR").timer().count());
+    }
+
+    @Test
+    void testPayloadSizeAndDeserializationAreRecorded() {
+        URI uri = URI.create("https://api.spotify.com/v1/me");
+        clientMetrics.recordResponseSize(uri, 512);
+        clientMetrics.recordDeserialization(uri, SpotifyUser.class, TimeUnit.MICROSECONDS.toNanos(300));
+
+        assertEquals(512, meterRegistry.get("spotify.client.response.size").tag("endpoint", "/v1/me").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("spotify.client.deserialization").tag("type", "SpotifyUser").timer().count());
+    }
+
+    @Test
+    void testAsyncRequestsInFlightAreGauged() {
+        clientMetrics.asyncRequestSent();
+        clientMetrics.asyncRequestSent();
+        clientMetrics.asyncRequestCompleted();
+
+        assertEquals(1, meterRegistry.get("spotify.http.async.in-flight").gauge().value());
+    }
+}
@@ -0,0 +1,93 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.config.HttpClientConfig;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.SpotifyEndpoint;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpotifyEndpointCatalogTest {
+
+    @Test
+    void testPoliciesFallBackToGlobalSettings() {
+        HttpClientConfig httpClientConfig = new HttpClientConfig();
+        RateLimitConfig rateLimitConfig = new RateLimitConfig();
+        ResponseCacheConfig responseCacheConfig = new ResponseCacheConfig();
+        SpotifyEndpointCatalog catalog = new SpotifyEndpointCatalog(new SpotifyConfig(), httpClientConfig,
+                rateLimitConfig, responseCacheConfig);
+
+        SpotifyEndpoint profile = catalog.get(SpotifyEndpointCatalog.PROFILE);
+        assertEquals("https://api.spotify.com/v1/me", profile.url());
+        assertEquals(httpClientConfig.getSocketTimeoutMs(), profile.timeoutMs());
+        assertEquals(responseCacheConfig.getDefaultTtlMs(), profile.cacheTtlMs());
+        assertEquals(rateLimitConfig.getMaxRetries(), profile.maxRetries());
+    }
+
+    @Test
+    void testEndpointOverrides() {
+        SpotifyConfig spotifyConfig = new SpotifyConfig();
+        spotifyConfig.setApiBaseUrl("http://127.0.0.1:8081");
+        SpotifyConfig.Endpoint topArtists = spotifyConfig.getEndpoints().get(SpotifyEndpointCatalog.TOP_ARTISTS);
+        topArtists.setBaseUrl("https://eu.proxy.example");
+        topArtists.setTimeoutMs(800);
+        topArtists.setCacheTtlMs(120000L);
+        topArtists.setMaxRetries(1);
+        SpotifyEndpointCatalog catalog = OAuthServiceTest.endpointCatalog(spotifyConfig);
+
+        assertEquals("http://127.0.0.1:8081/v1/me", catalog.get(SpotifyEndpointCatalog.PROFILE).url());
+        SpotifyEndpoint resolved = catalog.get(SpotifyEndpointCatalog.TOP_ARTISTS);
+        assertEquals("https://eu.proxy.example/v1/me/top/artists", resolved.url());
+        assertEquals(800, resolved.timeoutMs());
+        assertEquals(120000L, catalog.cacheTtlMs(SpotifyEndpointCatalog.TOP_ARTISTS));
+        assertEquals(1, resolved.maxRetries());
+    }
+
+    @Test
+    void testQueryParametersAreEncodedOnceAndPrecedeRequestParameters() {
+        SpotifyConfig spotifyConfig = new SpotifyConfig();
+        spotifyConfig.getEndpoints().get(SpotifyEndpointCatalog.TRACKS).getQuery().put("market", "SE");
+        spotifyConfig.getEndpoints().get(SpotifyEndpointCatalog.TOP_ARTISTS).getQuery().put("time_range", "short term");
+        SpotifyEndpointCatalog catalog = OAuthServiceTest.endpointCatalog(spotifyConfig);
+
+        SpotifyEndpoint tracks = catalog.get(SpotifyEndpointCatalog.TRACKS);
+        assertEquals("market=SE", tracks.query());
+        assertEquals("https://api.spotify.com/v1/tracks?market=SE&ids=", tracks.requestUrl("ids="));
+        assertEquals("https://api.spotify.com/v1/me/top/artists?time_range=short+term",
+                catalog.get(SpotifyEndpointCatalog.TOP_ARTISTS).requestUrl(null));
+        SpotifyEndpoint profile = catalog.get(SpotifyEndpointCatalog.PROFILE);
+        assertSame(profile.url(), profile.requestUrl(null));
+        assertEquals("https://api.spotify.com/v1/me?a=1", profile.requestUrl("a=1"));
+        assertSame(tracks, catalog.policyFor(URI.create(tracks.requestUrl("ids=t1"))));
+    }
+
+    @Test
+    void testPolicyForMatchesPathWhateverTheQuery() {
+        SpotifyEndpointCatalog catalog = OAuthServiceTest.endpointCatalog();
+        SpotifyEndpoint topArtists = catalog.get(SpotifyEndpointCatalog.TOP_ARTISTS);
+
+        assertSame(topArtists, catalog.policyFor(URI.create("https://api.spotify.com/v1/me/top/artists?limit=50&offset=100")));
+        assertSame(catalog.get(SpotifyEndpointCatalog.PROFILE), catalog.policyFor(URI.create("https://api.spotify.com/v1/me")));
+        assertSame(catalog.getDefaultPolicy(), catalog.policyFor(URI.create("https://accounts.spotify.com/api/token")));
+        assertSame(catalog.getDefaultPolicy(), catalog.policyFor(URI.create("http://api.spotify.com/v1/me")));
+    }
+
+    @Test
+    void testMisconfiguredCatalogFailsAtStartup() {
+        SpotifyConfig noPath = new SpotifyConfig();
+        noPath.getEndpoints().put("profile", new SpotifyConfig.Endpoint());
+        assertThrows(IllegalStateException.class, () -> OAuthServiceTest.endpointCatalog(noPath));
+
+        SpotifyConfig missing = new SpotifyConfig();
+        missing.getEndpoints().remove(SpotifyEndpointCatalog.TOP_ARTISTS);
+        assertThrows(IllegalStateException.class, () -> OAuthServiceTest.endpointCatalog(missing));
+
+        assertThrows(IllegalArgumentException.class, () -> OAuthServiceTest.endpointCatalog().get("playlists"));
+    }
+}
@@ -0,0 +1,60 @@
+package toy.jim.personal.spotify.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTokenResponse;
+import toy.jim.personal.spotify.model.SpotifyUser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyJsonTest {
+
+    @Test
+    void testReadersAndWritersAreBuiltOnceFromTheSharedMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SpotifyJson spotifyJson = new SpotifyJson(objectMapper);
+
+        assertSame(spotifyJson.reader(SpotifyUser.class), spotifyJson.reader(SpotifyUser.class));
+        assertSame(spotifyJson.writer(SpotifyShowsResponse.Item.class), spotifyJson.writer(SpotifyShowsResponse.Item.class));
+        assertSame(objectMapper, spotifyJson.getObjectMapper());
+        assertSame(objectMapper.getDeserializationConfig().getTypeFactory(),
+                spotifyJson.reader(SpotifyUser.class).getTypeFactory());
+    }
+
+    @Test
+    void testWritersFollowTheMapperConfiguration() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        SpotifyJson spotifyJson = new SpotifyJson(objectMapper);
+        SpotifyShowsResponse.Item item = new SpotifyShowsResponse.Item(null, null, List.of(), null, "1", List.of(),
+                "Artist", 50, "artist", null);
+
+        String json = new String(spotifyJson.write(item, SpotifyShowsResponse.Item.class), StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("\n"));
+        assertEquals(item, objectMapper.readValue(json, SpotifyShowsResponse.Item.class));
+    }
+
+    @Test
+    void testReadsTokenResponses() throws Exception {
+        SpotifyJson spotifyJson = OAuthServiceTest.spotifyJson();
+
+        SpotifyTokenResponse token = spotifyJson.read(new ByteArrayInputStream(
+                "{\"access_token\":\"abc\",\"token_type\":\"Bearer\",\"expires_in\":3600,\"extra\":{\"a\":[1]}}"
+                        .getBytes(StandardCharsets.UTF_8)), SpotifyTokenResponse.class);
+        SpotifyTokenResponse error = spotifyJson.read(new ByteArrayInputStream(
+                "{\"error\":\"invalid_grant\",\"error_description\":\"Invalid authorization code\"}"
+                        .getBytes(StandardCharsets.UTF_8)), SpotifyTokenResponse.class);
+
+        assertEquals("abc", token.access_token());
+        assertEquals(3600L, token.expires_in());
+        assertNull(token.refresh_token());
+        assertNull(error.access_token());
+        assertEquals("invalid_grant", error.error());
+    }
+}
@@ -0,0 +1,135 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.config.RateLimitConfig;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotifyRateLimiterTest {
+
+    private RateLimitConfig config;
+    private SpotifyRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.setInitialLimit(2);
+        config.setMaxLimit(4);
+        config.setAcquireTimeoutMs(200);
+        rateLimiter = new SpotifyRateLimiter(config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testRequestsBeyondLimitWaitForRelease() {
+        assertTrue(rateLimiter.acquire());
+        assertTrue(rateLimiter.acquire());
+        CompletableFuture<Void> third = rateLimiter.acquireAsync();
+        assertFalse(third.isDone());
+        assertEquals(1, rateLimiter.getQueued());
+
+        rateLimiter.release(System.nanoTime(), false, 0);
+
+        assertTrue(third.isDone());
+        assertEquals(2, rateLimiter.getInFlight());
+        assertEquals(0, rateLimiter.getQueued());
+    }
+
+    @Test
+    void testAcquireTimesOutWhenNoPermitFrees() {
+        assertTrue(rateLimiter.acquire());
+        assertTrue(rateLimiter.acquire());
+
+        assertFalse(rateLimiter.acquire());
+        assertEquals(2, rateLimiter.getInFlight());
+    }
+
+    @Test
+    void testLimitIncreasesAdditivelyAndDecreasesMultiplicatively() {
+        for (int i = 0; i < 20; i++) {
+            call(false, 0);
+        }
+        assertEquals(4, rateLimiter.getLimit(), 0.001);
+
+        call(true, 0);
+        assertEquals(2, rateLimiter.getLimit(), 0.001);
+
+        for (int i = 0; i < 5; i++) {
+            call(true, 0);
+        }
+        assertEquals(config.getMinLimit(), rateLimiter.getLimit(), 0.001);
+    }
+
+    @Test
+    void testLimitIsCutOncePerWindow() {
+        config.setInitialLimit(4);
+        rateLimiter = new SpotifyRateLimiter(config, new SimpleMeterRegistry());
+        long firstSent = sent();
+        long secondSent = sent();
+        assertEquals(2, rateLimiter.getInFlight());
+
+        // Both requests were in flight when Spotify started throttling; only the first cut counts
+        rateLimiter.release(firstSent, true, 0);
+        rateLimiter.release(secondSent, true, 0);
+        assertEquals(2, rateLimiter.getLimit(), 0.001);
+
+        // A request sent after the cut is told apart and cuts again
+        call(false, 0);
+        call(false, 0);
+        double grown = rateLimiter.getLimit();
+        call(true, 0);
+        assertEquals(Math.max(config.getMinLimit(), grown * config.getBackoffRatio()), rateLimiter.getLimit(), 0.001);
+    }
+
+    @Test
+    void testRetryAfterPausesNewRequests() throws Exception {
+        call(true, 150);
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> next = rateLimiter.acquireAsync();
+        assertFalse(next.isDone());
+        next.get(1, TimeUnit.SECONDS);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+    }
+
+    @Test
+    void testRetryDelayHonoursRetryAfterAndBacksOffWithJitter() {
+        long delay = rateLimiter.retryDelayMs(0, "2");
+        assertTrue(delay >= 2000 && delay <= 2000 + config.getBaseBackoffMs());
+
+        for (int attempt = 0; attempt < config.getMaxRetries(); attempt++) {
+            long backoff = rateLimiter.retryDelayMs(attempt, null);
+            assertTrue(backoff >= 0 && backoff <= config.getBaseBackoffMs() << attempt);
+        }
+
+        assertEquals(-1, rateLimiter.retryDelayMs(config.getMaxRetries(), null));
+        assertEquals(-1, rateLimiter.retryDelayMs(0, "3600"));
+    }
+
+    @Test
+    void testParseRetryAfter() {
+        assertEquals(5000, SpotifyRateLimiter.parseRetryAfterMs("5"));
+        assertEquals(0, SpotifyRateLimiter.parseRetryAfterMs(null));
+        assertEquals(0, SpotifyRateLimiter.parseRetryAfterMs("soon"));
+
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusSeconds(10));
+        long fromDate = SpotifyRateLimiter.parseRetryAfterMs(date);
+        assertTrue(fromDate > 8000 && fromDate <= 10000);
+    }
+
+    private long sent() {
+        assertTrue(rateLimiter.acquire());
+        return System.nanoTime();
+    }
+
+    private void call(boolean overloaded, long retryAfterMs) {
+        rateLimiter.release(sent(), overloaded, retryAfterMs);
+    }
+}
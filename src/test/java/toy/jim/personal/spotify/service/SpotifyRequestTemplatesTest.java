@@ -0,0 +1,99 @@
+package toy.jim.personal.spotify.service;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponentsBuilder;
+import toy.jim.personal.spotify.config.HttpClientConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpotifyRequestTemplatesTest {
+
+    private static final String CODE = "AQBx3kz0f1RWyD3M7sR8Hc2Tq9vLpN4uJ6eYgKaZ";
+    private static final String TOKEN = "BQD0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final String ME = "https://api.spotify.com/v1/me";
+
+    private final SpotifyRequestTemplates requestTemplates = OAuthServiceTest.requestTemplates();
+
+    @Test
+    void testCredentialHeaderIsBuiltOnce() {
+        HttpPost first = requestTemplates.clientCredentialsRequest();
+        HttpPost second = requestTemplates.authorizationCodeRequest(CODE);
+
+        assertEquals("Basic aWQ6c2VjcmV0", first.getFirstHeader("Authorization").getValue());
+        assertSame(first.getFirstHeader("Authorization"), second.getFirstHeader("Authorization"));
+        assertEquals(URI.create("https://accounts.spotify.com/api/token"), first.getURI());
+        assertSame(first.getURI(), second.getURI());
+    }
+
+    @Test
+    void testTokenRequestBodies() throws Exception {
+        assertEquals("grant_type=client_credentials",
+                EntityUtils.toString(requestTemplates.clientCredentialsRequest().getEntity()));
+        assertEquals("grant_type=authorization_code&code=" + CODE + "&redirect_uri=http%3A%2F%2Flocalhost%2Fcallback",
+                EntityUtils.toString(requestTemplates.authorizationCodeRequest(CODE).getEntity()));
+        assertEquals("grant_type=refresh_token&refresh_token=a%2Bb",
+                EntityUtils.toString(requestTemplates.refreshTokenRequest("a+b").getEntity()));
+        assertEquals("application/x-www-form-urlencoded",
+                requestTemplates.clientCredentialsRequest().getEntity().getContentType().getValue());
+    }
+
+    @Test
+    void testAuthorizationUrlMatchesBuiltUrl() {
+        String expected = UriComponentsBuilder.fromUriString("https://accounts.spotify.com/authorize")
+                .queryParam("client_id", "id")
+                .queryParam("response_type", "code")
+                .queryParam("redirect_uri", "http://localhost/callback")
+                .queryParam("scope", "user-read-private user-top-read")
+                .queryParam("state", "state-1")
+                .build()
+                .toUriString();
+
+        assertEquals(expected, requestTemplates.authorizationUrl("state-1"));
+    }
+
+    @Test
+    void testFixedUrisAreParsedOnce() {
+        assertSame(requestTemplates.uri(ME), requestTemplates.uri(ME));
+        assertSame(requestTemplates.uri(requestTemplates.getTopArtistsFirstPageUrl()),
+                requestTemplates.asyncBearerGet(requestTemplates.getTopArtistsFirstPageUrl(), TOKEN).build().uri());
+        assertEquals("https://api.spotify.com/v1/me/top/artists?limit=50", requestTemplates.getTopArtistsFirstPageUrl());
+
+        String nextPage = "https://api.spotify.com/v1/me/top/artists?limit=50&offset=50";
+        assertEquals(URI.create(nextPage), requestTemplates.uri(nextPage));
+        assertNotSame(requestTemplates.uri(nextPage), requestTemplates.uri(nextPage));
+    }
+
+    @Test
+    void testBearerRequests() {
+        HttpRequest asyncRequest = requestTemplates.asyncBearerGet(ME, TOKEN).build();
+        assertEquals("Bearer " + TOKEN, asyncRequest.headers().firstValue("Authorization").orElseThrow());
+        assertEquals("gzip", asyncRequest.headers().firstValue("Accept-Encoding").orElseThrow());
+        assertEquals(URI.create("https://api.spotify.com/v1/me"), asyncRequest.uri());
+        assertTrue(asyncRequest.timeout().isPresent());
+    }
+
+    @Test
+    void testRequestsUseTheirEndpointTimeout() {
+        SpotifyConfig spotifyConfig = new SpotifyConfig();
+        spotifyConfig.getEndpoints().get(SpotifyEndpointCatalog.PROFILE).setTimeoutMs(1500);
+        SpotifyRequestTemplates templates = OAuthServiceTest.requestTemplates(spotifyConfig);
+
+        assertEquals(Duration.ofMillis(1500), templates.asyncBearerGet(ME, TOKEN).build().timeout().orElseThrow());
+        // Other endpoints and unlisted URLs keep the global socket timeout
+        String nextPage = "https://api.spotify.com/v1/me/top/artists?limit=50&offset=50";
+        Duration socketTimeout = Duration.ofMillis(new HttpClientConfig().getSocketTimeoutMs());
+        assertEquals(socketTimeout, templates.asyncBearerGet(nextPage, TOKEN).build().timeout().orElseThrow());
+        assertEquals(socketTimeout,
+                templates.asyncBearerGet("https://api.spotify.com/v1/artists", TOKEN).build().timeout().orElseThrow());
+    }
+}
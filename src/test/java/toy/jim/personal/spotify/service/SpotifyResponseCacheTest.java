@@ -0,0 +1,202 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import toy.jim.personal.spotify.config.ResponseCacheConfig;
+import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.ConditionalResponse;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
+import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.VersionedResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpotifyResponseCacheTest {
+
+    private static final String URL = "https://api.spotify.com/v1/me";
+
+    @Mock
+    private SpotifyAsyncClient spotifyAsyncClient;
+
+    private MeterRegistry meterRegistry;
+    private SpotifyResponseCache responseCache;
+    private SpotifyUser user;
+
+    @BeforeEach
+    void setUp() {
+        user = new SpotifyUser("Test User", null, null, null, "123", null, "user", null, null, null, null, null);
+    }
+
+    @Test
+    void testFreshEntryIsServedFromCache() {
+        useProfileTtl(60000L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+
+        assertEquals(user, get(responseCache, "session-1"));
+        assertEquals(user, get(responseCache, "session-1"));
+
+        verify(spotifyAsyncClient, times(1)).getConditional("session-1", URL, SpotifyUser.class, null);
+        assertEquals(1, meterRegistry.counter("spotify.response.cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("spotify.response.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void testExpiredEntryIsRevalidatedWithEtag() {
+        useProfileTtl(0L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v1\""))
+                .thenReturn(CompletableFuture.completedFuture(ConditionalResponse.notModified("\"v1\"")));
+
+        get(responseCache, "session-1");
+        SpotifyUser revalidated = get(responseCache, "session-1");
+
+        assertSame(user, revalidated);
+        assertEquals(1, meterRegistry.counter("spotify.response.cache.requests", "result", "revalidated").count());
+    }
+
+    @Test
+    void testEntriesAreIsolatedPerSession() {
+        useProfileTtl(60000L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, null, false)));
+        when(spotifyAsyncClient.getConditional("session-2", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(ConditionalResponse.failed(401)));
+
+        assertEquals(user, get(responseCache, "session-1"));
+        assertNull(get(responseCache, "session-2"));
+    }
+
+    @Test
+    void testInvalidateDropsSessionEntries() {
+        useProfileTtl(60000L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, null, false)));
+
+        get(responseCache, "session-1");
+        responseCache.invalidate("session-1");
+        get(responseCache, "session-1");
+
+        verify(spotifyAsyncClient, times(2)).getConditional("session-1", URL, SpotifyUser.class, null);
+    }
+
+    @Test
+    void testVersionFollowsTheContent() {
+        useProfileTtl(0L);
+        SpotifyUser renamed = new SpotifyUser("Renamed", null, null, null, "123", null, "user", null, null, null, null, null);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+        // A new upstream tag with the same content, then new content, then a 304
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v1\""))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v2\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v2\""))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(renamed, "\"v3\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v3\""))
+                .thenReturn(CompletableFuture.completedFuture(ConditionalResponse.notModified("\"v3\"")));
+
+        VersionedResponse<SpotifyUser> first = responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join();
+        VersionedResponse<SpotifyUser> sameContent = responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join();
+        VersionedResponse<SpotifyUser> changed = responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join();
+        VersionedResponse<SpotifyUser> revalidated = responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join();
+
+        assertNotNull(first.etag());
+        assertEquals(first.etag(), sameContent.etag());
+        assertEquals(first.lastModifiedMs(), sameContent.lastModifiedMs());
+        assertNotEquals(first.etag(), changed.etag());
+        assertTrue(changed.lastModifiedMs() >= first.lastModifiedMs());
+        assertEquals(changed, revalidated);
+    }
+
+    @Test
+    void testProjectionsOfOneUrlAreCachedApart() {
+        useProfileTtl(60000L);
+        SpotifyProfileView view = new SpotifyProfileView("Test User", null, null, "123", null, "user");
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyProfileView.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(view, "\"v1\"", false)));
+
+        assertEquals(user, responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join().body());
+        assertEquals(view, responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyProfileView.class).join().body());
+        assertEquals(user, responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyUser.class).join().body());
+        assertEquals(view, responseCache.getVersionedAsync("session-1", "profile", URL, SpotifyProfileView.class).join().body());
+    }
+
+    @Test
+    void testStaleEntryIsServedWhenSpotifyIsUnavailable() {
+        useProfileTtl(0L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v1\""))
+                .thenReturn(CompletableFuture.completedFuture(ConditionalResponse.failed(503)));
+
+        get(responseCache, "session-1");
+        SpotifyUser stale = get(responseCache, "session-1");
+
+        assertEquals(user, stale);
+        assertEquals(1.0, meterRegistry.counter("spotify.response.cache.requests", "result", "stale").count());
+    }
+
+    @Test
+    void testStaleEntryIsNotServedForClientErrors() {
+        useProfileTtl(0L);
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, "\"v1\""))
+                .thenReturn(CompletableFuture.completedFuture(ConditionalResponse.failed(403)));
+
+        get(responseCache, "session-1");
+
+        // The user lost access to the resource; the cached copy must not stand in for it
+        assertNull(get(responseCache, "session-1"));
+        assertEquals(0, meterRegistry.counter("spotify.response.cache.requests", "result", "stale").count());
+    }
+
+    @Test
+    void testReplicasShareEntriesThroughSharedStore() {
+        SharedStateStore shared = new InMemorySharedStateStore() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        SpotifyResponseCache replicaA = new SpotifyResponseCache(spotifyAsyncClient, new ResponseCacheConfig(),
+                OAuthServiceTest.endpointCatalog(), shared, OAuthServiceTest.spotifyJson(), new SimpleMeterRegistry());
+        SpotifyResponseCache replicaB = new SpotifyResponseCache(spotifyAsyncClient, new ResponseCacheConfig(),
+                OAuthServiceTest.endpointCatalog(), shared, OAuthServiceTest.spotifyJson(), new SimpleMeterRegistry());
+        when(spotifyAsyncClient.getConditional("session-1", URL, SpotifyUser.class, null))
+                .thenReturn(CompletableFuture.completedFuture(new ConditionalResponse<>(user, "\"v1\"", false)));
+
+        assertEquals(user, get(replicaA, "session-1"));
+        assertEquals(user, get(replicaB, "session-1"));
+        verify(spotifyAsyncClient, times(1)).getConditional("session-1", URL, SpotifyUser.class, null);
+
+        replicaB.invalidate("session-1");
+        assertEquals(0, shared.size(SpotifyResponseCache.RESPONSES));
+    }
+
+    private void useProfileTtl(long ttlMs) {
+        SpotifyConfig spotifyConfig = new SpotifyConfig();
+        spotifyConfig.getEndpoints().get(SpotifyEndpointCatalog.PROFILE).setCacheTtlMs(ttlMs);
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new SpotifyResponseCache(spotifyAsyncClient, new ResponseCacheConfig(),
+                OAuthServiceTest.endpointCatalog(spotifyConfig), new InMemorySharedStateStore(), OAuthServiceTest.spotifyJson(), meterRegistry);
+    }
+
+    private static SpotifyUser get(SpotifyResponseCache cache, String sessionId) {
+        VersionedResponse<SpotifyUser> response = cache.getVersionedAsync(sessionId, "profile", URL, SpotifyUser.class).join();
+        return response != null ? response.body() : null;
+    }
+}
@@ -0,0 +1,102 @@
+package toy.jim.personal.spotify.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import toy.jim.personal.spotify.config.WarmUpConfig;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmUpTest {
+
+    @Spy
+    private WarmUpConfig warmUpConfig = new WarmUpConfig();
+
+    @Spy
+    private SpotifyJson spotifyJson = OAuthServiceTest.spotifyJson();
+
+    @Mock
+    private OAuthService oAuthService;
+
+    @Spy
+    private SpotifyEndpointCatalog endpoints = OAuthServiceTest.endpointCatalog();
+
+    @Mock
+    private CloseableHttpClient spotifyHttpClient;
+
+    @Mock
+    private HttpClient spotifyAsyncHttpClient;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StartupWarmUp startupWarmUp;
+
+    @Test
+    void testEveryModelIsReadBack() {
+        assertEquals(3 * SpotifyJson.MODELS.size(), startupWarmUp.primeJson(3));
+    }
+
+    @Test
+    void testOneConnectionIsOpenedPerHostOnEachClient() throws Exception {
+        when(oAuthService.getAccessToken()).thenReturn("app-token");
+        when(spotifyHttpClient.execute(any(HttpUriRequest.class))).thenReturn(mock(CloseableHttpResponse.class));
+        when(spotifyAsyncHttpClient.send(any(), any())).thenReturn(null);
+
+        // Every endpoint of the default catalog is on api.spotify.com
+        assertEquals(3, startupWarmUp.openConnections());
+
+        ArgumentCaptor<HttpUriRequest> head = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(spotifyHttpClient).execute(head.capture());
+        assertEquals("HEAD", head.getValue().getMethod());
+        assertEquals(URI.create("https://api.spotify.com/"), head.getValue().getURI());
+        ArgumentCaptor<HttpRequest> asyncHead = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(spotifyAsyncHttpClient).send(asyncHead.capture(), any());
+        assertEquals("HEAD", asyncHead.getValue().method());
+        assertEquals(URI.create("https://api.spotify.com/"), asyncHead.getValue().uri());
+    }
+
+    @Test
+    void testUnreachableSpotifyDoesNotFailWarmUp() throws Exception {
+        when(oAuthService.getAccessToken()).thenReturn(null);
+        when(spotifyHttpClient.execute(any(HttpUriRequest.class))).thenThrow(new ConnectException("Connection refused"));
+        when(spotifyAsyncHttpClient.send(any(), any(HttpResponse.BodyHandler.class))).thenThrow(new ConnectException());
+        warmUpConfig.setJsonIterations(1);
+
+        startupWarmUp.warmUp();
+
+        assertEquals(1, meterRegistry.timer("spotify.warmup").count());
+    }
+
+    @Test
+    void testDisabledWarmUpDoesNothing() {
+        warmUpConfig.setEnabled(false);
+
+        startupWarmUp.warmUp();
+
+        verifyNoInteractions(oAuthService, spotifyHttpClient, spotifyAsyncHttpClient);
+        assertEquals(0, meterRegistry.timer("spotify.warmup").count());
+    }
+}
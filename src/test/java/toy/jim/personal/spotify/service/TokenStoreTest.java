@@ -0,0 +1,162 @@
+package toy.jim.personal.spotify.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import toy.jim.personal.spotify.config.TokenStoreConfig;
+import toy.jim.personal.spotify.model.SpotifyToken;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TokenStoreTest {
+
+    private TokenStoreConfig config;
+    private TokenStore tokenStore;
+
+    @BeforeEach
+    void setUp() {
+        config = new TokenStoreConfig();
+        tokenStore = new TokenStore(config, new InMemorySharedStateStore());
+    }
+
+    @Test
+    void testPutAndGet() {
+        SpotifyToken token = new SpotifyToken("access", "refresh", Instant.now().plusSeconds(3600));
+        tokenStore.put("session-1", token);
+
+        assertEquals(token, tokenStore.get("session-1"));
+        assertNull(tokenStore.get("session-2"));
+        assertNull(tokenStore.get(null));
+    }
+
+    @Test
+    void testIdleSessionsAreEvicted() throws Exception {
+        config.setSessionTtlMs(0);
+        tokenStore.put("session-1", new SpotifyToken("access", null, null));
+        Thread.sleep(5);
+
+        tokenStore.evictExpired();
+
+        assertEquals(0, tokenStore.size());
+        assertNull(tokenStore.get("session-1"));
+    }
+
+    @Test
+    void testExpiredStateIsRejected() throws Exception {
+        config.setStateTtlMs(0);
+        tokenStore.putState("session-1", "state");
+        Thread.sleep(5);
+
+        assertFalse(tokenStore.consumeState("session-1", "state"));
+    }
+
+    @Test
+    void testConcurrentSessionsDoNotOverwriteEachOther() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String sessionId = "session-" + i;
+            futures.add(executor.submit(() -> tokenStore.put(sessionId, new SpotifyToken(sessionId, null, null))));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(5000, tokenStore.size());
+        assertEquals("session-42", tokenStore.get("session-42").accessToken());
+    }
+
+    @Test
+    void testTokensRoundTripThroughTheStore() {
+        SpotifyToken full = new SpotifyToken("access", "refresh", Instant.now().plusSeconds(3600));
+        SpotifyToken bare = new SpotifyToken("access", null, null);
+
+        assertEquals(full, TokenStore.decode(TokenStore.encode(full)));
+        assertEquals(bare, TokenStore.decode(TokenStore.encode(bare)));
+    }
+
+    @Test
+    void testSessionsAndStateAreSharedBetweenReplicas() {
+        SharedStateStore shared = new InMemorySharedStateStore();
+        TokenStore replicaA = new TokenStore(config, shared);
+        TokenStore replicaB = new TokenStore(config, shared);
+
+        replicaA.putState("session-1", "state");
+        assertTrue(replicaB.consumeState("session-1", "state"));
+        assertFalse(replicaA.consumeState("session-1", "state"));
+
+        SpotifyToken token = new SpotifyToken("access", "refresh", Instant.now().plusSeconds(3600));
+        replicaB.put("session-1", token);
+        assertEquals(token, replicaA.get("session-1"));
+    }
+
+    @Test
+    void testRefreshLeaseIsHeldByOneReplica() throws Exception {
+        SharedStateStore shared = new InMemorySharedStateStore();
+        TokenStore replicaA = new TokenStore(config, shared);
+        TokenStore replicaB = new TokenStore(config, shared);
+
+        assertTrue(replicaA.tryLockRefresh("session-1", 60000));
+        assertFalse(replicaB.tryLockRefresh("session-1", 60000));
+        assertTrue(replicaB.isRefreshLocked("session-1"));
+        assertTrue(replicaB.tryLockRefresh("session-2", 60000));
+
+        // Only the holder releases it
+        replicaB.unlockRefresh("session-1");
+        assertTrue(replicaA.isRefreshLocked("session-1"));
+        replicaA.unlockRefresh("session-1");
+        assertTrue(replicaB.tryLockRefresh("session-1", 0));
+
+        // An expired lease, e.g. of a replica that died while refreshing, can be taken over
+        Thread.sleep(5);
+        assertFalse(replicaA.isRefreshLocked("session-1"));
+        assertTrue(replicaA.tryLockRefresh("session-1", 60000));
+    }
+
+    @Test
+    void testUnlockLeavesALeaseTakenOverByAnotherReplica() throws Exception {
+        SharedStateStore shared = spy(new InMemorySharedStateStore());
+        TokenStore replicaA = new TokenStore(config, shared);
+        TokenStore replicaB = new TokenStore(config, shared);
+
+        assertTrue(replicaA.tryLockRefresh("session-1", 0));
+        Thread.sleep(5);
+        assertTrue(replicaB.tryLockRefresh("session-1", 60000));
+        // The replica whose lease expired finishes its refresh late
+        replicaA.unlockRefresh("session-1");
+
+        assertTrue(replicaA.isRefreshLocked("session-1"));
+        verify(shared, never()).remove(anyString(), anyString());
+    }
+
+    @Test
+    void testReadsExtendExpiryOncePerTouchInterval() {
+        SharedStateStore shared = spy(new InMemorySharedStateStore());
+        tokenStore = new TokenStore(config, shared);
+        tokenStore.put("session-1", new SpotifyToken("access", null, null));
+
+        tokenStore.get("session-1");
+        tokenStore.peek("session-1");
+        verify(shared, never()).touch(anyString(), anyString(), anyLong());
+
+        config.setTouchIntervalMs(0);
+        tokenStore.get("session-1");
+        tokenStore.peek("session-1");
+        verify(shared, times(1)).touch(TokenStore.TOKENS, "session-1", config.getSessionTtlMs());
+    }
+}
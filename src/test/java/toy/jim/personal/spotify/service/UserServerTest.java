@@ -5,15 +5,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import toy.jim.personal.spotify.config.SpotifyConfig;
+import toy.jim.personal.spotify.model.SpotifyDashboard;
+import toy.jim.personal.spotify.model.SpotifyProfileView;
 import toy.jim.personal.spotify.model.SpotifyShowsResponse;
+import toy.jim.personal.spotify.model.SpotifyTopArtistsView;
 import toy.jim.personal.spotify.model.SpotifyUser;
+import toy.jim.personal.spotify.model.VersionedResponse;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,16 +30,29 @@ import static org.mockito.Mockito.when;
 class UserServerTest {
 
     @Mock
-    private OAuthService oAuthService;
+    private SpotifyResponseCache responseCache;
 
     @Mock
     private SpotifyConfig spotifyConfig;
 
+    @Mock
+    private SpotifyAsyncClient spotifyAsyncClient;
+
+    @Spy
+    private SpotifyRequestTemplates requestTemplates = OAuthServiceTest.requestTemplates();
+
+    @Spy
+    private SpotifyEndpointCatalog endpoints = OAuthServiceTest.endpointCatalog();
+
     @InjectMocks
     private UserServer userServer;
 
     private SpotifyUser mockUser;
     private SpotifyShowsResponse mockShowsResponse;
+    private final SpotifyProfileView profileView = new SpotifyProfileView(
+            "Test User", null, new SpotifyProfileView.Followers(100), "123", List.of(), "user");
+    private final SpotifyTopArtistsView topArtistsView = new SpotifyTopArtistsView(1, List.of(
+            new SpotifyTopArtistsView.Artist(null, List.of("rock"), "456", List.of(), "Test Artist", 80)));
 
     @BeforeEach
     void setUp() {
@@ -85,35 +107,99 @@ class UserServerTest {
     }
 
     @Test
-    void testGetUser() {
-        // Mock OAuthService behavior
-        when(oAuthService.getSpotifyUser("https://api.spotify.com/v1/me")).thenReturn(mockUser);
+    void testGetUserAsync() {
+        when(responseCache.getVersionedAsync("session-1", "profile", "https://api.spotify.com/v1/me", SpotifyUser.class))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(mockUser, "u1", 1000L)));
+
+        VersionedResponse<SpotifyUser> result = userServer.getUserAsync("session-1").join();
+
+        assertNotNull(result);
+        assertEquals("Test User", result.body().display_name());
+        assertEquals("u1", result.etag());
+    }
+
+    @Test
+    void testGetTracksAsync() {
+        when(responseCache.getVersionedAsync("session-1", "top-artists", "https://api.spotify.com/v1/me/top/artists", SpotifyShowsResponse.class))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(mockShowsResponse, "t1", 2000L)));
+
+        VersionedResponse<SpotifyShowsResponse> result = userServer.getTracksAsync("session-1").join();
+
+        assertNotNull(result);
+        assertEquals(1, result.body().items().size());
+    }
+
+    @Test
+    void testGetDashboardAsync() {
+        when(spotifyConfig.getDashboardDeadlineMs()).thenReturn(1000L);
+        when(responseCache.getVersionedAsync("session-1", "profile", "https://api.spotify.com/v1/me", SpotifyProfileView.class))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(profileView, "p1", 1000L)));
+        when(responseCache.getVersionedAsync("session-1", "top-artists", "https://api.spotify.com/v1/me/top/artists", SpotifyTopArtistsView.class))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(topArtistsView, "a1", 2000L)));
 
-        // Test the method
-        SpotifyUser result = userServer.getUser();
+        VersionedResponse<SpotifyDashboard> result = userServer.getDashboardAsync("session-1").join();
 
-        // Verify
         assertNotNull(result);
-        assertEquals("Test User", result.display_name());
-        assertEquals("123", result.id());
-        assertEquals("test@example.com", result.email());
-        verify(oAuthService).getSpotifyUser("https://api.spotify.com/v1/me");
+        assertEquals("Test User", result.body().profile().display_name());
+        assertEquals(1, result.body().topArtists().items().size());
+        assertEquals("p1.a1", result.etag());
+        assertEquals(2000L, result.lastModifiedMs());
     }
 
     @Test
-    void testGetTracks() {
-        // Mock OAuthService behavior
-        when(oAuthService.getSpotifyTracks("https://api.spotify.com/v1/me/top/artists")).thenReturn(mockShowsResponse);
+    void testGetDashboardAsync_PartMissesDeadline() {
+        // Top artists never answer; the shared in-flight future must not be completed by the deadline
+        CompletableFuture<VersionedResponse<SpotifyTopArtistsView>> slowTracks = new CompletableFuture<>();
+        when(spotifyConfig.getDashboardDeadlineMs()).thenReturn(50L);
+        when(responseCache.getVersionedAsync("session-1", "profile", "https://api.spotify.com/v1/me", SpotifyProfileView.class))
+                .thenReturn(CompletableFuture.completedFuture(new VersionedResponse<>(profileView, "p1", 1000L)));
+        when(responseCache.getVersionedAsync("session-1", "top-artists", "https://api.spotify.com/v1/me/top/artists", SpotifyTopArtistsView.class))
+                .thenReturn(slowTracks);
 
-        // Test the method
-        SpotifyShowsResponse result = userServer.getTracks();
+        VersionedResponse<SpotifyDashboard> result = userServer.getDashboardAsync("session-1").join();
 
-        // Verify
         assertNotNull(result);
-        assertEquals(20, result.limit());
-        assertEquals(100, result.total());
-        assertEquals(1, result.items().size());
-        assertEquals("Test Show", result.items().get(0).name());
-        verify(oAuthService).getSpotifyTracks("https://api.spotify.com/v1/me/top/artists");
+        assertEquals("Test User", result.body().profile().display_name());
+        assertNull(result.body().topArtists());
+        assertNull(result.etag());
+        assertFalse(slowTracks.isDone());
+    }
+
+    @Test
+    void testGetDashboardAsync_NothingAvailable() {
+        when(spotifyConfig.getDashboardDeadlineMs()).thenReturn(1000L);
+        when(responseCache.getVersionedAsync("session-1", "profile", "https://api.spotify.com/v1/me", SpotifyProfileView.class))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(responseCache.getVersionedAsync("session-1", "top-artists", "https://api.spotify.com/v1/me/top/artists", SpotifyTopArtistsView.class))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("upstream down")));
+
+        assertNull(userServer.getDashboardAsync("session-1").join());
+    }
+
+    @Test
+    void testGetTopArtistPagesFollowsPages() {
+        String firstPage = "https://api.spotify.com/v1/me/top/artists?limit=50";
+        String secondPage = "https://api.spotify.com/v1/me/top/artists?offset=50&limit=50";
+        SpotifyShowsResponse.Item other = new SpotifyShowsResponse.Item(null, null, List.of(), null, "456",
+                List.of(), "Other Show", 10, "show", "spotify:show:456");
+        when(spotifyAsyncClient.getSpotifyTracks("session-1", firstPage)).thenReturn(CompletableFuture.completedFuture(
+                new SpotifyShowsResponse(firstPage, 50, secondPage, 0, null, 2, mockShowsResponse.items())));
+        when(spotifyAsyncClient.getSpotifyTracks("session-1", secondPage)).thenReturn(CompletableFuture.completedFuture(
+                new SpotifyShowsResponse(secondPage, 50, null, 50, firstPage, 2, List.of(other))));
+
+        PrefetchingPageIterator pages = userServer.getTopArtistPages("session-1").join();
+        List<String> names = new ArrayList<>();
+        pages.forEachRemaining(page -> page.items().forEach(item -> names.add(item.name())));
+
+        assertEquals(List.of("Test Show", "Other Show"), names);
+        assertFalse(pages.isIncomplete());
+    }
+
+    @Test
+    void testGetTopArtistPages_FirstPageMissing() {
+        when(spotifyAsyncClient.getSpotifyTracks("session-1", "https://api.spotify.com/v1/me/top/artists?limit=50"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertNull(userServer.getTopArtistPages("session-1").join());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,325 @@
+package toy.jim.personal.spotify.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded stand-in for the Spotify accounts and Web API endpoints used by the application.
+ * Serves /api/token, /v1/me, /v1/me/top/artists and the multi-ID /v1/artists and /v1/tracks lookups
+ * so load tests can run without touching real Spotify.
+ * Web API responses can be delayed, a share of all responses can be answered with 500 or 429, and
+ * the top artists can be spread over several pages linked through {@code next}.
+ */
+public class FakeSpotifyServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger tokenCounter = new AtomicInteger();
+    private final AtomicInteger apiRequests = new AtomicInteger();
+    private final AtomicInteger lookedUpIds = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger injectedThrottles = new AtomicInteger();
+    private volatile int minDelayMs;
+    private volatile int maxDelayMs;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int retryAfterSeconds;
+    private volatile int pages = 1;
+
+    private FakeSpotifyServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Start a fake server on a random local port.
+     *
+     * @return The running server
+     */
+    public static FakeSpotifyServer start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        FakeSpotifyServer fake = new FakeSpotifyServer(server);
+        server.createContext("/api/token", fake::handleToken);
+        server.createContext("/v1/me/top/artists", fake::handleTopArtists);
+        server.createContext("/v1/me", fake::handleMe);
+        server.createContext("/v1/artists", fake::handleArtists);
+        server.createContext("/v1/tracks", fake::handleTracks);
+        // One virtual thread per exchange so the stand-in itself is never the bottleneck
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return fake;
+    }
+
+    /**
+     * Delay every Web API response by a uniformly random time in the given range.
+     *
+     * @param minDelayMs The minimum delay in milliseconds
+     * @param maxDelayMs The maximum delay in milliseconds
+     * @return This server
+     */
+    public FakeSpotifyServer withLatency(int minDelayMs, int maxDelayMs) {
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        return this;
+    }
+
+    /**
+     * Answer a share of all Web API requests with a 500 error. Token exchanges are left alone, as a failed token
+     * POST is not retried and would fail the whole login.
+     *
+     * @param errorRate The share of requests to fail, between 0 and 1
+     * @return This server
+     */
+    public FakeSpotifyServer withErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Answer a share of all requests, token exchanges included, with 429 Too Many Requests.
+     *
+     * @param throttleRate      The share of requests to throttle, between 0 and 1
+     * @param retryAfterSeconds The Retry-After value sent with each 429
+     * @return This server
+     */
+    public FakeSpotifyServer withThrottling(double throttleRate, int retryAfterSeconds) {
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * Spread the top artists over the given number of pages of the requested limit.
+     *
+     * @param pages The number of pages
+     * @return This server
+     */
+    public FakeSpotifyServer withPages(int pages) {
+        this.pages = pages;
+        return this;
+    }
+
+    /**
+     * Get the base URL of the server, e.g. http://127.0.0.1:54321.
+     *
+     * @return The base URL
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Get the command line arguments that point the application's OAuth and Web API calls at this server.
+     *
+     * @return The arguments, in --property=value form
+     */
+    public List<String> applicationArgs() {
+        return List.of(
+                "--oauth.client-id=load-test",
+                "--oauth.client-secret=load-test",
+                "--oauth.token-url=" + baseUrl() + "/api/token",
+                "--oauth.authorization-url=" + baseUrl() + "/authorize",
+                "--spotify.api-base-url=" + baseUrl());
+    }
+
+    /**
+     * Get the number of IDs looked up through /v1/artists and /v1/tracks so far.
+     *
+     * @return The number of IDs
+     */
+    public int lookedUpIds() {
+        return lookedUpIds.get();
+    }
+
+    /**
+     * Get the number of Web API requests served so far.
+     *
+     * @return The number of requests
+     */
+    public int apiRequests() {
+        return apiRequests.get();
+    }
+
+    /**
+     * Get the number of requests answered with an injected 500.
+     *
+     * @return The number of injected errors
+     */
+    public int injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * Get the number of requests answered with an injected 429.
+     *
+     * @return The number of injected throttles
+     */
+    public int injectedThrottles() {
+        return injectedThrottles.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        if (injectFault(exchange, 0)) {
+            return;
+        }
+        // Every exchange gets a distinct token so sessions are not coalesced onto one upstream call
+        int n = tokenCounter.incrementAndGet();
+        respond(exchange, 200, "{\"access_token\":\"token-" + n + "\",\"token_type\":\"Bearer\","
+                + "\"expires_in\":3600,\"refresh_token\":\"refresh-" + n + "\"}");
+    }
+
+    private void handleMe(HttpExchange exchange) throws IOException {
+        delay();
+        apiRequests.incrementAndGet();
+        if (injectFault(exchange, errorRate)) {
+            return;
+        }
+        respond(exchange, 200, "{\"display_name\":\"Load Test\",\"id\":\"load-test\",\"type\":\"user\","
+                + "\"uri\":\"spotify:user:load-test\",\"country\":\"US\",\"product\":\"premium\"}");
+    }
+
+    private void handleTopArtists(HttpExchange exchange) throws IOException {
+        delay();
+        apiRequests.incrementAndGet();
+        if (injectFault(exchange, errorRate)) {
+            return;
+        }
+        int limit = queryParameter(exchange, "limit", 20);
+        int offset = queryParameter(exchange, "offset", 0);
+        int total = pages * limit;
+        String href = baseUrl() + "/v1/me/top/artists";
+        StringBuilder items = new StringBuilder();
+        for (int i = offset; i < Math.min(offset + limit, total); i++) {
+            if (!items.isEmpty()) {
+                items.append(',');
+            }
+            items.append("{\"id\":\"").append(i).append("\",\"name\":\"Artist ").append(i)
+                    .append("\",\"popularity\":50,\"type\":\"artist\",\"uri\":\"spotify:artist:").append(i).append("\"}");
+        }
+        String next = offset + limit < total ? "\"" + href + "?limit=" + limit + "&offset=" + (offset + limit) + "\"" : "null";
+        String previous = offset > 0 ? "\"" + href + "?limit=" + limit + "&offset=" + Math.max(0, offset - limit) + "\"" : "null";
+        respond(exchange, 200, "{\"href\":\"" + href + "?limit=" + limit + "&offset=" + offset + "\",\"limit\":" + limit
+                + ",\"next\":" + next + ",\"offset\":" + offset + ",\"previous\":" + previous + ",\"total\":" + total
+                + ",\"items\":[" + items + "]}");
+    }
+
+    private void handleArtists(HttpExchange exchange) throws IOException {
+        handleSeveral(exchange, "artists", id -> "{\"id\":\"" + id + "\",\"name\":\"Artist " + id
+                + "\",\"popularity\":50,\"type\":\"artist\",\"uri\":\"spotify:artist:" + id + "\"}");
+    }
+
+    private void handleTracks(HttpExchange exchange) throws IOException {
+        handleSeveral(exchange, "tracks", id -> "{\"id\":\"" + id + "\",\"name\":\"Track " + id
+                + "\",\"duration_ms\":180000,\"type\":\"track\",\"uri\":\"spotify:track:" + id + "\"}");
+    }
+
+    /**
+     * Answer a multi-ID lookup with one object per requested ID, in order, rejecting more than 50 IDs as Spotify does.
+     */
+    private void handleSeveral(HttpExchange exchange, String field, Function<String, String> item) throws IOException {
+        delay();
+        apiRequests.incrementAndGet();
+        if (injectFault(exchange, errorRate)) {
+            return;
+        }
+        String query = exchange.getRequestURI().getQuery();
+        String[] ids = query != null && query.startsWith("ids=") ? query.substring("ids=".length()).split(",") : new String[0];
+        if (ids.length == 0 || ids.length > 50) {
+            respond(exchange, 400, "{\"error\":{\"status\":400,\"message\":\"Invalid ids\"}}");
+            return;
+        }
+        lookedUpIds.addAndGet(ids.length);
+        StringBuilder items = new StringBuilder();
+        for (String id : ids) {
+            if (!items.isEmpty()) {
+                items.append(',');
+            }
+            items.append(item.apply(id));
+        }
+        respond(exchange, 200, "{\"" + field + "\":[" + items + "]}");
+    }
+
+    /**
+     * Answer the exchange with an injected 500 or 429 if the given error rate or the configured throttle rate say so.
+     *
+     * @return true if a fault was sent and the exchange is complete
+     */
+    private boolean injectFault(HttpExchange exchange, double errorRate) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < errorRate) {
+            injectedErrors.incrementAndGet();
+            respond(exchange, 500, "{\"error\":{\"status\":500,\"message\":\"Injected failure\"}}");
+            return true;
+        }
+        if (roll < errorRate + throttleRate) {
+            injectedThrottles.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+            respond(exchange, 429, "{\"error\":{\"status\":429,\"message\":\"API rate limit exceeded\"}}");
+            return true;
+        }
+        return false;
+    }
+
+    private static int queryParameter(HttpExchange exchange, String name, int defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String parameter : query.split("&")) {
+            String[] pair = parameter.split("=", 2);
+            if (pair.length == 2 && pair[0].equals(name)) {
+                return Integer.parseInt(pair[1]);
+            }
+        }
+        return defaultValue;
+    }
+
+    private void delay() {
+        int min = minDelayMs;
+        int max = maxDelayMs;
+        if (max <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(min + ThreadLocalRandom.current().nextInt(Math.max(1, max - min + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answer with a JSON body, gzip-compressed if the client asked for it, as Spotify does.
+     */
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
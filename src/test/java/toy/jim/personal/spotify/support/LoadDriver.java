@@ -0,0 +1,192 @@
+package toy.jim.personal.spotify.support;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load generator for a running instance of the application.
+ * Each virtual user runs a {@link Scenario} on its own virtual thread; every request is timed
+ * and recorded under its path, so throughput and latency percentiles can be reported per endpoint.
+ */
+public class LoadDriver {
+
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+    private volatile long elapsedNanos;
+
+    /**
+     * @param baseUrl The base URL of the application, e.g. http://127.0.0.1:8080
+     */
+    public LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * The steps one virtual user performs against the application.
+     */
+    @FunctionalInterface
+    public interface Scenario {
+        void run(LoadDriver driver) throws Exception;
+    }
+
+    /**
+     * Run the scenario for the given number of concurrent users and wait until all have finished.
+     * Samples recorded by earlier runs are discarded.
+     *
+     * @param users    The number of concurrent virtual users
+     * @param scenario The steps each user performs
+     * @return This driver, for reading the results
+     */
+    public LoadDriver run(int users, Scenario scenario) throws Exception {
+        samples.clear();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int u = 0; u < users; u++) {
+                futures.add(executor.submit(() -> {
+                    scenario.run(this);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * Log a virtual user in through the authorization code flow, recording both the authorize
+     * and the callback request. The callback counts as an error unless it redirects with success.
+     *
+     * @return The session cookie of the logged-in user
+     */
+    public String login() throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<Void> authorize = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/oauth/authorize"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        record("/api/oauth/authorize", System.nanoTime() - start, authorize.statusCode() != 302);
+        String cookie = authorize.headers().firstValue("Set-Cookie").orElseThrow().split(";", 2)[0];
+        String location = authorize.headers().firstValue("Location").orElseThrow();
+        String state = location.substring(location.indexOf("state=") + "state=".length());
+
+        start = System.nanoTime();
+        HttpResponse<Void> callback = client.send(HttpRequest.newBuilder(URI.create(baseUrl
+                        + "/api/oauth/callback?code=load-test&state=" + URLEncoder.encode(state, StandardCharsets.UTF_8)))
+                .header("Cookie", cookie).build(), HttpResponse.BodyHandlers.discarding());
+        boolean loggedIn = callback.headers().firstValue("Location").orElse("").contains("success=true");
+        record("/api/oauth/callback", System.nanoTime() - start, !loggedIn);
+        return cookie;
+    }
+
+    /**
+     * Send a GET to the application and record it under its path. The body is read in full,
+     * so streamed responses are timed until their last byte. Statuses of 400 and above count as errors.
+     *
+     * @param path   The path to request
+     * @param cookie The session cookie, or null
+     * @return The response status code
+     */
+    public int get(String path, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        record(path, System.nanoTime() - start, response.statusCode() >= 400);
+        return response.statusCode();
+    }
+
+    /**
+     * Get the results of the last run for the given paths combined, or for every path if none is given.
+     *
+     * @param paths The paths to combine
+     * @return The combined results
+     */
+    public Stats stats(String... paths) {
+        List<Long> latencies = new ArrayList<>();
+        int errors = 0;
+        for (Map.Entry<String, Samples> entry : samples.entrySet()) {
+            if (paths.length == 0 || List.of(paths).contains(entry.getKey())) {
+                latencies.addAll(entry.getValue().latencies);
+                errors += entry.getValue().errors.get();
+            }
+        }
+        Collections.sort(latencies);
+        return new Stats(latencies.size(), errors, latencies.size() / (elapsedNanos / 1e9),
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    /**
+     * Print one line per recorded path with its throughput, p50 and p99 latency and error count.
+     *
+     * @param title The heading printed above the table
+     */
+    public void printReport(String title) {
+        System.out.printf("%n%s%n%-28s %8s %10s %10s %10s %8s%n", title, "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        samples.keySet().stream().sorted().forEach(path -> System.out.println(stats(path).format(path)));
+        System.out.println(stats().format("total"));
+    }
+
+    private void record(String path, long nanos, boolean error) {
+        Samples pathSamples = samples.computeIfAbsent(path, p -> new Samples());
+        pathSamples.latencies.add(nanos);
+        if (error) {
+            pathSamples.errors.incrementAndGet();
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+
+    private static final class Samples {
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger errors = new AtomicInteger();
+    }
+
+    /**
+     * Throughput and latency of a set of requests.
+     *
+     * @param requests   The number of requests
+     * @param errors     The number of failed requests
+     * @param throughput Requests per second over the whole run
+     * @param p50Ms      Median latency in milliseconds
+     * @param p99Ms      99th percentile latency in milliseconds
+     */
+    public record Stats(int requests, int errors, double throughput, double p50Ms, double p99Ms) {
+
+        /**
+         * Format the results as one table row.
+         *
+         * @param label The row label
+         * @return The formatted row
+         */
+        public String format(String label) {
+            return String.format("%-28s %8d %10.1f %10.1f %10.1f %8d", label, requests, throughput, p50Ms, p99Ms, errors);
+        }
+    }
+}